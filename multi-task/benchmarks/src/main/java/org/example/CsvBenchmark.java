@@ -0,0 +1,59 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * History CSV loading: raw projected parsing from memory, and the two loaders built on it reading
+ * from disk (the page cache after the first iteration).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvBenchmark {
+    private Path csv;
+    private byte[] content;
+    private ColumnarCsvReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        csv = Fixtures.historyCsv();
+        content = Files.readAllBytes(csv);
+        reader = new ColumnarCsvReader(
+            ColumnarCsvReader.Column.epochDays("datetime"),
+            ColumnarCsvReader.Column.doubles("temp"),
+            ColumnarCsvReader.Column.doubles("humidity"),
+            ColumnarCsvReader.Column.doubles("windspeed"));
+    }
+
+    @Benchmark
+    public ColumnTable projectedColumns() throws IOException {
+        return reader.read(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public TrainingSet trainingSet() {
+        return TrainingSet.fromCsv(csv);
+    }
+
+    @Benchmark
+    public FeaturePipeline.FeatureMatrix featurePipeline() {
+        return FeaturePipeline.fromCsv(csv);
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link WeatherFetcher} end to end against a local stub of the timeline API that answers every
+ * request with the same recorded response: request building, the HTTP round trip over loopback,
+ * parsing, and for many cities the bounded concurrent fan-out. No response cache is used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FetchBenchmark {
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private WeatherFetcher fetcher;
+    private List<String> cities;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] response = Fixtures.timelineJson().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 256);
+        serverThreads = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverThreads);
+        server.createContext("/timeline/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        // The stub speaks plain HTTP/1.1, so the client keeps a pool of connections instead of one h2 stream
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        fetcher = new WeatherFetcher(client, "http://localhost:" + server.getAddress().getPort() + "/timeline",
+            "bench", null, WeatherFetcher.DEFAULT_TTL);
+
+        cities = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            cities.add("City " + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public WeatherFetcher.CityWeather fetchCity() {
+        return fetcher.fetchCityAsync(Fixtures.CITY).join();
+    }
+
+    @Benchmark
+    public Map<String, WeatherFetcher.CityWeather> fetchAllCities() {
+        return fetcher.fetchAll(cities);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Inputs shared by the benchmarks: a recorded-style timeline response and the checked-in history CSVs.
+ */
+final class Fixtures {
+    static final String CITY = "Chennai";
+
+    private Fixtures() {
+    }
+
+    /** An eight-day Visual Crossing timeline response with hourly data, about 90 KB. */
+    static String timelineJson() {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/timeline-chennai.json")) {
+            if (in == null) {
+                throw new IllegalStateException("timeline-chennai.json is missing from the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read timeline fixture", e);
+        }
+    }
+
+    /**
+     * The history directory, from -Dweatherapp.historyDir or the source tree when run from the
+     * reactor root or from this module.
+     */
+    static Path historyDir() {
+        String configured = System.getProperty("weatherapp.historyDir");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        for (String candidate : new String[]{"java/src/main/java/org/example", "../java/src/main/java/org/example"}) {
+            Path dir = Paths.get(candidate);
+            if (Files.isDirectory(dir)) {
+                return dir;
+            }
+        }
+        throw new IllegalStateException("History CSVs not found; set -Dweatherapp.historyDir");
+    }
+
+    static Path historyCsv() {
+        return TemperaturePredictor.findHistoryFile(historyDir(), CITY);
+    }
+}
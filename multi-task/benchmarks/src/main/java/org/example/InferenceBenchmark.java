@@ -0,0 +1,65 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Prediction with the default 100-tree forest: one call per row against one batched call for all rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InferenceBenchmark {
+    @Param({"1", "7", "64"})
+    public int rows;
+
+    private RandomForestRegressor forest;
+    private double[][] singleRows;
+    private double[] matrix;
+
+    @Setup
+    public void setUp() {
+        TrainingSet set = TrainingSet.fromCsv(Fixtures.historyCsv());
+        double[][] columns = set.features();
+        forest = new RandomForestRegressor().fit(columns, set.target());
+
+        int width = columns.length;
+        singleRows = new double[rows][width];
+        matrix = new double[rows * width];
+        for (int r = 0; r < rows; r++) {
+            // Spread the rows over the history so they take different paths through the trees
+            int source = (int) ((long) r * (set.size() - 1) / Math.max(1, rows - 1));
+            for (int f = 0; f < width; f++) {
+                singleRows[r][f] = columns[f][source];
+                matrix[r * width + f] = columns[f][source];
+            }
+        }
+    }
+
+    @Benchmark
+    public double[] single() {
+        double[] out = new double[rows];
+        for (int r = 0; r < rows; r++) {
+            out[r] = forest.predict(singleRows[r]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] batched() {
+        return forest.predictBatch(matrix);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Timeline response parsing: the streaming {@link TimelineParser} against building an org.json tree
+ * and reading the same fields from it, as the app did before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = Fixtures.timelineJson();
+    }
+
+    @Benchmark
+    public WeatherTimeline streaming() throws IOException {
+        return TimelineParser.parse(json);
+    }
+
+    @Benchmark
+    public void orgJsonTree(Blackhole blackhole) {
+        JSONObject root = new JSONObject(json);
+        JSONObject current = root.getJSONObject("currentConditions");
+        blackhole.consume(current.optDouble("temp"));
+        blackhole.consume(current.optDouble("humidity"));
+        blackhole.consume(current.optDouble("windspeed"));
+        blackhole.consume(current.optString("conditions"));
+        JSONArray days = root.getJSONArray("days");
+        for (int i = 0; i < days.length(); i++) {
+            JSONObject day = days.getJSONObject(i);
+            blackhole.consume(day.optString("datetime"));
+            blackhole.consume(day.optDouble("temp"));
+            blackhole.consume(day.optDouble("tempmax"));
+            blackhole.consume(day.optDouble("tempmin"));
+            blackhole.consume(day.optDouble("humidity"));
+            blackhole.consume(day.optDouble("windspeed"));
+            blackhole.consume(day.optDouble("winddir"));
+            blackhole.consume(day.optDouble("dew"));
+            blackhole.consume(day.optDouble("pressure"));
+            blackhole.consume(day.optDouble("cloudcover"));
+            blackhole.consume(day.optDouble("solarradiation"));
+            blackhole.consume(day.optDouble("precip"));
+            blackhole.consume(day.optString("conditions"));
+        }
+    }
+}
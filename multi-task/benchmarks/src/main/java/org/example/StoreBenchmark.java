@@ -0,0 +1,105 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The JDBC paths of {@link MySqlWeatherStore} against an in-process H2 database in MySQL mode: one
+ * refresh's batched write for every city, the two reads the GUI and server make, and a backfill
+ * transaction of a year of one city's observations. This measures
+ * the store's own statement and pooling overhead; MySQL's network and disk costs come on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreBenchmark {
+    private static final List<String> CITIES = List.of("Chennai", "Bangalore", "Delhi");
+
+    private MySqlWeatherStore store;
+    private List<WeatherStore.WeatherRow> weatherRows;
+    private List<WeatherStore.PredictionRow> predictionRows;
+    private List<Observation> observations;
+
+    @Setup
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("weather-bench");
+        config.setJdbcUrl("jdbc:h2:mem:weather;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(4);
+        store = new MySqlWeatherStore(new HikariDataSource(config));
+        store.createTables();
+
+        LocalDate today = LocalDate.now();
+        weatherRows = new ArrayList<>();
+        predictionRows = new ArrayList<>();
+        for (String city : CITIES) {
+            weatherRows.add(new WeatherStore.WeatherRow(city, 29.5, 71.0, 12.4, today));
+            for (int h = 1; h <= Forecaster.HORIZON_DAYS; h++) {
+                predictionRows.add(new WeatherStore.PredictionRow(city, 29.0 + h * 0.1, 32.0, 25.5,
+                    today.plusDays(h), h));
+            }
+        }
+
+        observations = new ArrayList<>();
+        double[] values = Observation.emptyValues();
+        for (int d = 0; d < 365; d++) {
+            for (int f = 0; f < values.length; f++) {
+                values[f] = 20.0 + f + Math.sin(d * 0.1);
+            }
+            observations.add(new Observation(today.minusDays(365 - d), values));
+        }
+    }
+
+    // Writes accumulate during an iteration; start each one from a single refresh's worth of rows
+    @Setup(Level.Iteration)
+    public void reset() {
+        store.clearAll();
+        store.store(weatherRows, predictionRows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.close();
+    }
+
+    @Benchmark
+    public void storeRefresh() {
+        store.store(weatherRows, predictionRows);
+    }
+
+    // After the first call every row is a duplicate key, as when a backfill is replayed
+    @Benchmark
+    public void upsertYearOfObservations() {
+        store.upsertObservations("Chennai", observations);
+    }
+
+    @Benchmark
+    public OptionalDouble readPrediction() {
+        return store.readPrediction("Chennai");
+    }
+
+    @Benchmark
+    public List<WeatherStore.PredictionRow> readForecast() {
+        return store.readForecast("Chennai");
+    }
+}
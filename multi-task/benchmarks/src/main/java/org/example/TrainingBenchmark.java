@@ -0,0 +1,52 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Forest fitting on the Chennai history: the next-day model and one of the forecast targets, whose
+ * training set has a row per day and horizon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingBenchmark {
+    @Param({"10", "100"})
+    public int trees;
+
+    private TrainingSet nextDay;
+    private ForecastSet forecast;
+
+    @Setup
+    public void setUp() {
+        nextDay = TrainingSet.fromCsv(Fixtures.historyCsv());
+        forecast = ForecastSet.build(Fixtures.historyCsv(), null, Forecaster.HORIZON_DAYS);
+    }
+
+    @Benchmark
+    public RandomForestRegressor nextDayForest() {
+        return forest().fit(nextDay.features(), nextDay.target());
+    }
+
+    @Benchmark
+    public RandomForestRegressor forecastForest() {
+        return forest().fit(forecast.features(), forecast.target(0));
+    }
+
+    private RandomForestRegressor forest() {
+        return new RandomForestRegressor(trees, Integer.MAX_VALUE, 1, RandomForestRegressor.DEFAULT_SEED);
+    }
+}
@@ -0,0 +1,291 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Logging handler that never writes on the logging thread. {@link #publish} only puts the record in a
+ * bounded queue; a single writer thread formats records in batches, writes each batch with one flush,
+ * and rotates the file by size and age. When the queue is full, records are dropped and counted rather
+ * than making the caller wait.
+ *
+ * Parameterized messages ({@code "{0}"}) are formatted on the writer thread too, so a disabled level
+ * costs only the level check and an enabled one costs the caller an enqueue.
+ */
+public class AsyncLogHandler extends Handler {
+    private static final int BATCH = 512;
+    private static final Metrics.Counter DROPPED =
+        Metrics.counter("log_records_dropped_total", "Log records dropped because the log queue was full");
+
+    // The trace ID has to be read on the logging thread; the rest of the record is formatted later
+    private record Entry(LogRecord record, String trace) {
+    }
+
+    private static final Entry STOP = new Entry(null, null);
+
+    private final Path file;
+    private final long maxBytes;
+    private final int keep;
+    private final long maxAgeMillis;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    // Null after a failed write until the next batch reopens it
+    private Writer out;
+    private long bytes;
+    private long openedAt;
+    private boolean rotationFailed;
+
+    /**
+     * @param maxBytes rotate once the file reaches this size
+     * @param keep     rotated files kept as file.1 (newest) to file.keep
+     * @param maxAge   rotate once the file has been open this long
+     * @param capacity records that can wait for the writer before new ones are dropped
+     */
+    public AsyncLogHandler(Path file, long maxBytes, int keep, Duration maxAge, int capacity) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.keep = keep;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        setFormatter(new KeyValueFormatter());
+        open();
+        this.writer = new Thread(this::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        String trace = Trace.current();
+        if (!queue.offer(new Entry(record, trace.equals("-") ? null : trace))) {
+            dropped.increment();
+            DROPPED.increment();
+        }
+    }
+
+    /** Records dropped because the queue was full. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Batches are flushed as they are written; this waits briefly for the queue to empty. */
+    @Override
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        try {
+            while (!queue.isEmpty() && writer.isAlive() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Writes everything already queued, then closes the file. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (queue.offer(STOP, 5, TimeUnit.SECONDS)) {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // An I/O error costs the rest of its batch, never the writer: the file is reopened, and a failed
+    // rotation retried, with the next batch
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH);
+        StringBuilder text = new StringBuilder(64 * 1024);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH - 1);
+                rotationFailed = false;
+                boolean stop = false;
+                int written = 0;
+                try {
+                    for (Entry entry : batch) {
+                        if (entry == STOP) {
+                            stop = true;
+                        } else {
+                            text.setLength(0);
+                            format(entry, text);
+                            write(text);
+                        }
+                        written++;
+                    }
+                    if (out != null) {
+                        out.flush();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    long lost = batch.subList(written, batch.size()).stream().filter(entry -> entry != STOP).count();
+                    dropped.add(lost);
+                    DROPPED.add(lost);
+                    reportError("Failed to write log records to " + file + "; retrying with the next batch", e,
+                        ErrorManager.WRITE_FAILURE);
+                    closeQuietly();
+                    stop |= batch.contains(STOP);
+                }
+                batch.clear();
+                if (stop) {
+                    closeQuietly();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeQuietly() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            reportError("Failed to close " + file, e, ErrorManager.CLOSE_FAILURE);
+        }
+        out = null;
+    }
+
+    private void format(Entry entry, StringBuilder text) {
+        try {
+            String line = getFormatter().format(entry.record());
+            int msg = entry.trace() == null ? -1 : line.indexOf(" msg=");
+            if (msg >= 0) {
+                text.append(line, 0, msg).append(" trace=").append(entry.trace()).append(line, msg, line.length());
+            } else {
+                text.append(line);
+            }
+        } catch (RuntimeException e) {
+            reportError("Failed to format log record", e, ErrorManager.FORMAT_FAILURE);
+        }
+    }
+
+    private void write(CharSequence text) throws IOException {
+        if (!rotationFailed && (bytes >= maxBytes || System.currentTimeMillis() - openedAt >= maxAgeMillis)) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                // A locked or full disk; keep appending to the current file and retry with the next batch
+                rotationFailed = true;
+                reportError("Failed to rotate " + file, e, ErrorManager.GENERIC_FAILURE);
+            }
+        }
+        if (out == null) {
+            open();
+        }
+        out.append(text);
+        // Log lines are almost all ASCII; counting chars keeps the size check off the encoder
+        bytes += text.length();
+    }
+
+    private void rotate() throws IOException {
+        closeQuietly();
+        Files.deleteIfExists(rotated(keep));
+        for (int i = keep - 1; i >= 1; i--) {
+            if (Files.exists(rotated(i))) {
+                Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (keep > 0) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        bytes = Files.size(file);
+        openedAt = System.currentTimeMillis();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    /**
+     * One line per record: {@code ts=... level=INFO logger=... thread=... msg="..."}, with an
+     * {@code error="..."} and the stack trace when the record has a throwable.
+     */
+    public static class KeyValueFormatter extends Formatter {
+        @Override
+        public String format(LogRecord record) {
+            StringBuilder line = new StringBuilder(160);
+            line.append("ts=").append(Instant.ofEpochMilli(record.getMillis()))
+                .append(" level=").append(record.getLevel().getName())
+                .append(" logger=").append(simpleName(record.getLoggerName()))
+                .append(" thread=").append(record.getLongThreadID())
+                .append(" msg=");
+            quote(line, formatMessage(record));
+            Throwable thrown = record.getThrown();
+            if (thrown != null) {
+                line.append(" error=");
+                quote(line, thrown.toString());
+                StringWriter trace = new StringWriter();
+                thrown.printStackTrace(new PrintWriter(trace));
+                line.append('\n').append(trace.toString().stripTrailing());
+            }
+            return line.append('\n').toString();
+        }
+
+        private static String simpleName(String logger) {
+            return logger == null ? "-" : logger.substring(logger.lastIndexOf('.') + 1);
+        }
+
+        private static void quote(StringBuilder line, String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    default -> line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    }
+}
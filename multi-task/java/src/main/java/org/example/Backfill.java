@@ -0,0 +1,222 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads daily history CSVs (the bundled city files and Visual Crossing exports dropped into an inbox
+ * directory) into the store's observations table. Each file is streamed row by row and written in
+ * transactions of {@code batchRows} rows; after every transaction the file's progress is saved to a
+ * checkpoint file, so an interrupted run resumes after the last committed batch and a finished file is
+ * skipped until it changes. Writes are upserts, so a batch repeated after a crash between its commit
+ * and its checkpoint does no harm.
+ */
+public class Backfill {
+    private static final Logger LOGGER = Logger.getLogger(Backfill.class.getName());
+
+    public static final int DEFAULT_BATCH_ROWS = 10_000;
+
+    private static final Metrics.Counter ROWS =
+        Metrics.counter("backfill_rows_total", "Observation rows written by the backfill");
+
+    public record Summary(int files, int skipped, int failed, long rows, long millis) {
+        public double rowsPerSecond() {
+            return millis == 0 ? rows : rows * 1000.0 / millis;
+        }
+    }
+
+    // Progress through one file; only valid while the file keeps the size and time it had when recorded
+    private record Progress(long size, long modified, long rows, boolean complete) {
+        static Progress parse(String value) {
+            String[] parts = value.split(",");
+            return new Progress(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                Boolean.parseBoolean(parts[3]));
+        }
+
+        String format() {
+            return size + "," + modified + "," + rows + "," + complete;
+        }
+    }
+
+    private final WeatherStore store;
+    private final Path checkpointFile;
+    private final int batchRows;
+    private final Properties checkpoints = new Properties();
+
+    public Backfill(WeatherStore store, Path checkpointFile) {
+        this(store, checkpointFile, DEFAULT_BATCH_ROWS);
+    }
+
+    /**
+     * @param checkpointFile where progress is kept between runs; created if missing
+     * @param batchRows      rows per transaction
+     */
+    public Backfill(WeatherStore store, Path checkpointFile, int batchRows) {
+        if (batchRows < 1) {
+            throw new IllegalArgumentException("batchRows must be positive: " + batchRows);
+        }
+        this.store = store;
+        this.checkpointFile = checkpointFile;
+        this.batchRows = batchRows;
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            checkpoints.load(in);
+        } catch (NoSuchFileException e) {
+            // First run
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read backfill checkpoint " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Loads every history CSV in the directories, in name order. Directories that do not exist are
+     * skipped, so an inbox only has to be created once there is something to load. A file that fails is
+     * logged and counted, and the rest still run.
+     */
+    public Summary run(List<Path> directories) {
+        long start = System.nanoTime();
+        int files = 0;
+        int skipped = 0;
+        int failed = 0;
+        long rows = 0;
+        for (Path file : historyFiles(directories)) {
+            files++;
+            try {
+                long loaded = load(file);
+                if (loaded < 0) {
+                    skipped++;
+                } else {
+                    rows += loaded;
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                LOGGER.log(Level.SEVERE, e, () -> "Backfill of " + file + " failed");
+            }
+        }
+        return new Summary(files, skipped, failed, rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Loads one file from its checkpoint on.
+     *
+     * @return rows written, or -1 if the file was already complete
+     */
+    long load(Path file) {
+        String city = CityRegistry.titleCase(CityRegistry.cityOf(file));
+        String key = file.toAbsolutePath().normalize().toString();
+        long size;
+        long modified;
+        try {
+            size = Files.size(file);
+            modified = Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+        String saved = checkpoints.getProperty(key);
+        Progress progress = saved == null ? null : Progress.parse(saved);
+        if (progress != null && (progress.size() != size || progress.modified() != modified)) {
+            progress = null; // Changed since, so load it again from the start
+        }
+        if (progress != null && progress.complete()) {
+            return -1;
+        }
+        long resumeAt = progress == null ? 0 : progress.rows();
+
+        long start = System.nanoTime();
+        List<Observation> batch = new ArrayList<>(batchRows);
+        long[] written = new long[1];
+        double[] values = Observation.emptyValues();
+        ColumnarCsvReader reader = new ColumnarCsvReader(columns());
+        try {
+            reader.stream(file, row -> {
+                if (row.number() < resumeAt) {
+                    return;
+                }
+                long day = row.getEpochDay(0);
+                if (day != ColumnarCsvReader.MISSING_DAY) {
+                    for (int f = 0; f < values.length; f++) {
+                        values[f] = row.getDouble(f + 1);
+                    }
+                    batch.add(new Observation(day, values));
+                }
+                if (batch.size() == batchRows) {
+                    written[0] += flush(city, batch, key, new Progress(size, modified, row.number() + 1, false));
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+        written[0] += flush(city, batch, key, new Progress(size, modified, 0, true));
+        LOGGER.log(Level.INFO, "Backfilled {0} rows for {1} from {2} in {3} ms", new Object[]{
+            written[0], city, file.getFileName(), (System.nanoTime() - start) / 1_000_000});
+        return written[0];
+    }
+
+    private int flush(String city, List<Observation> batch, String key, Progress progress) {
+        int rows = batch.size();
+        store.upsertObservations(city, batch);
+        batch.clear();
+        ROWS.add(rows);
+        checkpoints.setProperty(key, progress.format());
+        saveCheckpoints();
+        return rows;
+    }
+
+    // Replaced atomically so a crash leaves either the old or the new checkpoint
+    private void saveCheckpoints() {
+        try {
+            Path dir = checkpointFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, "backfill", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                checkpoints.store(out, "Backfill progress: size,modified,rows,complete per file");
+            }
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write backfill checkpoint " + checkpointFile, e);
+        }
+    }
+
+    private static ColumnarCsvReader.Column[] columns() {
+        ColumnarCsvReader.Column[] columns = new ColumnarCsvReader.Column[ObservationField.count() + 1];
+        columns[0] = ColumnarCsvReader.Column.epochDays("datetime");
+        for (int f = 0; f < ObservationField.count(); f++) {
+            columns[f + 1] = ColumnarCsvReader.Column.doubles(ObservationField.at(f).csvName());
+        }
+        return columns;
+    }
+
+    private static List<Path> historyFiles(List<Path> directories) {
+        List<Path> files = new ArrayList<>();
+        for (Path dir : directories) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            List<Path> found = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, "*.csv")) {
+                for (Path file : entries) {
+                    if (CityRegistry.cityOf(file) != null) {
+                        found.add(file);
+                    } else {
+                        LOGGER.log(Level.WARNING, "Skipping {0}: not named like a history export", file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to list " + dir, e);
+            }
+            found.sort(null);
+            files.addAll(found);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,154 @@
+package org.example;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Weather backgrounds for {@link WeatherGUI}. Each image is decoded once from the classpath, subsampled
+ * while decoding to roughly the screen size, and then kept as a window-sized copy in the display's
+ * native format, so painting it is a plain copy. The copies are rebuilt only when the window size changes.
+ *
+ * Decoding happens in {@link #preload()} off the event thread; until then {@link #get} returns null.
+ */
+final class BackgroundCache {
+    private static final Logger LOGGER = Logger.getLogger(BackgroundCache.class.getName());
+
+    enum Sky {
+        CLOUDY("/anandu-vinod-pbxwxwfI0B4-unsplash.jpg"),
+        RAINY("/vecteezy_ai-generated-rainy-sky-observations-background_42195747.jpg"),
+        CLEAR("/drew-hays-_Vq7JTlS4XE-unsplash.jpg");
+
+        final String resource;
+
+        Sky(String resource) {
+            this.resource = resource;
+        }
+
+        static Sky of(String condition) {
+            String lower = condition == null ? "" : condition.toLowerCase();
+            if (lower.contains("cloud")) {
+                return CLOUDY;
+            }
+            if (lower.contains("rain")) {
+                return RAINY;
+            }
+            return CLEAR;
+        }
+    }
+
+    private final Dimension maxSize;
+    private final Map<Sky, BufferedImage> sources = new EnumMap<>(Sky.class);
+    private final Map<Sky, BufferedImage> scaled = new EnumMap<>(Sky.class);
+    private int width;
+    private int height;
+
+    /**
+     * @param maxSize the largest size the window can take, normally the screen size
+     */
+    BackgroundCache(Dimension maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Decodes every background not decoded yet. Blocks for the decoding, so call it off the event thread.
+     */
+    void preload() {
+        for (Sky sky : Sky.values()) {
+            synchronized (this) {
+                if (sources.containsKey(sky)) {
+                    continue;
+                }
+            }
+            BufferedImage image = decode(sky);
+            synchronized (this) {
+                sources.put(sky, image);
+            }
+        }
+    }
+
+    /**
+     * The background at exactly width x height, or null if it is not decoded yet or failed to load.
+     *
+     * @param gc configuration of the screen the window is on, or null for a plain RGB image
+     */
+    synchronized BufferedImage get(Sky sky, int width, int height, GraphicsConfiguration gc) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        if (width != this.width || height != this.height) {
+            scaled.clear();
+            this.width = width;
+            this.height = height;
+        }
+        BufferedImage image = scaled.get(sky);
+        if (image == null) {
+            BufferedImage source = sources.get(sky);
+            if (source == null) {
+                return null;
+            }
+            image = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            scaled.put(sky, image);
+        }
+        return image;
+    }
+
+    // Subsampling while decoding keeps a 20-megapixel photo from ever being held at full size
+    private BufferedImage decode(Sky sky) {
+        long start = System.nanoTime();
+        try (InputStream in = BackgroundCache.class.getResourceAsStream(sky.resource)) {
+            if (in == null) {
+                LOGGER.log(Level.WARNING, "Background image {0} is not on the classpath", sky.resource);
+                return null;
+            }
+            try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+                if (!readers.hasNext()) {
+                    LOGGER.log(Level.WARNING, "No image reader for {0}", sky.resource);
+                    return null;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(stream, true, true);
+                    int step = Math.max(1, Math.min(reader.getWidth(0) / maxSize.width,
+                        reader.getHeight(0) / maxSize.height));
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(step, step, 0, 0);
+                    BufferedImage image = reader.read(0, param);
+                    LOGGER.log(Level.INFO, "Decoded {0} background at {1,number,#}x{2,number,#} in {3,number,#} ms",
+                        new Object[]{sky, image.getWidth(), image.getHeight(), (System.nanoTime() - start) / 1_000_000});
+                    return image;
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error loading background image {0}: {1}", new Object[]{sky.resource, e.getMessage()});
+            return null;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Walk-forward backtest of next-day temperature models over a city's history CSV. Starting after an
+ * initial training period, each day is predicted by a model fitted only on days whose outcome was
+ * already known, and the model is refitted every {@code retrainDays} days.
+ *
+ * Every {@link FeatureSet} is scored on the same days, so their errors are directly comparable: a day
+ * is tested only if all feature sets can build a row for it. The {@link OnlineRegressor} is scored on
+ * those days too, learning each day right after predicting it instead of being refitted.
+ */
+public class Backtester {
+    private static final Logger LOGGER = Logger.getLogger(Backtester.class.getName());
+
+    public static final int DEFAULT_INITIAL_DAYS = 365;
+    public static final int DEFAULT_RETRAIN_DAYS = 30;
+
+    // Bytes per tree node: int feature, double threshold, int left, int right, double value
+    private static final int NODE_BYTES = 4 + 8 + 4 + 4 + 8;
+
+    /** Model inputs for predicting day t+1 at the end of day t. */
+    public enum FeatureSet {
+        /** The production model: temp(t), humidity(t+1), windspeed(t+1). */
+        BASELINE(TemperaturePredictor.FEATURE_NAMES.length),
+        /** {@link FeaturePipeline} features of day t plus humidity(t+1) and windspeed(t+1). */
+        RICH(FeaturePipeline.WIDTH + 2);
+
+        final int width;
+
+        FeatureSet(int width) {
+            this.width = width;
+        }
+    }
+
+    public enum Model {
+        FOREST, ONLINE
+    }
+
+    /**
+     * Accuracy and cost of one model and feature set on one city. Latencies are per single-row prediction;
+     * for the online model, fits counts updates and train time is their total.
+     */
+    public record Report(String city, Model model, FeatureSet features, int trainRows, int predictions, double mae, double rmse,
+                         int fits, long trainMillis, double meanPredictMicros, double p99PredictMicros,
+                         long modelBytes, long peakHeapBytes) {
+    }
+
+    /** Feature-major rows for every feature set over the same days, with next-day temp as the target. */
+    static final class Dataset {
+        final long[] days;
+        final double[] target;
+        final double[][][] features;
+
+        private Dataset(long[] days, double[] target, double[][][] features) {
+            this.days = days;
+            this.target = target;
+            this.features = features;
+        }
+
+        int size() {
+            return target.length;
+        }
+
+        static Dataset of(long[] days, double[][] fields, int n) {
+            FeaturePipeline.FeatureMatrix rich = FeaturePipeline.transform(days, fields, n);
+            double[] temp = fields[ObservationField.TEMP.ordinal()];
+            double[] humidity = fields[ObservationField.HUMIDITY.ordinal()];
+            double[] windspeed = fields[ObservationField.WIND_SPEED.ordinal()];
+
+            FeatureSet[] sets = FeatureSet.values();
+            double[][][] features = new double[sets.length][][];
+            for (FeatureSet set : sets) {
+                features[set.ordinal()] = new double[set.width][n];
+            }
+            long[] rowDays = new long[n];
+            double[] target = new double[n];
+            int size = 0;
+            for (int t = 0; t + 1 < n; t++) {
+                int next = t + 1;
+                if (!rich.ready()[t] || days[next] != days[t] + 1 || Double.isNaN(temp[t]) || Double.isNaN(temp[next])
+                    || Double.isNaN(humidity[next]) || Double.isNaN(windspeed[next])) {
+                    continue;
+                }
+                double[][] baseline = features[FeatureSet.BASELINE.ordinal()];
+                baseline[0][size] = temp[t];
+                baseline[1][size] = humidity[next];
+                baseline[2][size] = windspeed[next];
+
+                double[][] columns = features[FeatureSet.RICH.ordinal()];
+                for (int c = 0; c < FeaturePipeline.WIDTH; c++) {
+                    columns[c][size] = rich.columns()[c][t];
+                }
+                columns[FeaturePipeline.WIDTH][size] = humidity[next];
+                columns[FeaturePipeline.WIDTH + 1][size] = windspeed[next];
+
+                rowDays[size] = days[t];
+                target[size] = temp[next];
+                size++;
+            }
+            for (double[][] set : features) {
+                for (int c = 0; c < set.length; c++) {
+                    set[c] = Arrays.copyOf(set[c], size);
+                }
+            }
+            return new Dataset(Arrays.copyOf(rowDays, size), Arrays.copyOf(target, size), features);
+        }
+
+        static Dataset fromCsv(Path csv) {
+            ColumnTable table = FeaturePipeline.readCsv(csv);
+            return of(table.epochDays("datetime"), FeaturePipeline.fields(table), table.rows());
+        }
+    }
+
+    private final int initialDays;
+    private final int retrainDays;
+    private final Supplier<RandomForestRegressor> models;
+
+    public Backtester() {
+        this(DEFAULT_INITIAL_DAYS, DEFAULT_RETRAIN_DAYS, RandomForestRegressor::new);
+    }
+
+    /**
+     * @param initialDays rows in the first training window; days before it are never predicted
+     * @param retrainDays predicted days between refits, 1 to refit every day
+     * @param models      creates an unfitted model for each refit
+     */
+    public Backtester(int initialDays, int retrainDays, Supplier<RandomForestRegressor> models) {
+        if (initialDays < 1 || retrainDays < 1) {
+            throw new IllegalArgumentException("initialDays and retrainDays must be positive");
+        }
+        this.initialDays = initialDays;
+        this.retrainDays = retrainDays;
+        this.models = models;
+    }
+
+    /**
+     * Backtests every feature set on the city's history CSV.
+     */
+    public List<Report> run(Path historyDir, String city) {
+        Dataset data = Dataset.fromCsv(TemperaturePredictor.findHistoryFile(historyDir, city));
+        List<Report> reports = new ArrayList<>();
+        for (FeatureSet set : FeatureSet.values()) {
+            reports.add(run(city, data, set));
+        }
+        reports.add(runOnline(city, data, FeatureSet.RICH, new OnlineRegressor(FeatureSet.RICH.width)));
+        return reports;
+    }
+
+    Report run(String city, Dataset data, FeatureSet set) {
+        int n = data.size();
+        if (n <= initialDays) {
+            throw new IllegalArgumentException("Only " + n + " usable days for " + city
+                + ", need more than " + initialDays);
+        }
+        double[][] columns = data.features[set.ordinal()];
+        double[] row = new double[set.width];
+        long[] latencies = new long[n - initialDays];
+        Runtime runtime = Runtime.getRuntime();
+
+        RandomForestRegressor model = null;
+        int fits = 0;
+        long trainNanos = 0;
+        long peakHeap = 0;
+        double absError = 0.0;
+        double squaredError = 0.0;
+        for (int i = initialDays; i < n; i++) {
+            // Rows before i have targets up to day i, so they are all known when day i is predicted
+            if ((i - initialDays) % retrainDays == 0) {
+                double[][] train = new double[set.width][];
+                for (int c = 0; c < set.width; c++) {
+                    train[c] = Arrays.copyOf(columns[c], i);
+                }
+                long start = System.nanoTime();
+                model = models.get().fit(train, Arrays.copyOf(data.target, i));
+                trainNanos += System.nanoTime() - start;
+                fits++;
+                peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory());
+            }
+            for (int c = 0; c < set.width; c++) {
+                row[c] = columns[c][i];
+            }
+            long start = System.nanoTime();
+            double predicted = model.predict(row);
+            latencies[i - initialDays] = System.nanoTime() - start;
+
+            double error = predicted - data.target[i];
+            absError += Math.abs(error);
+            squaredError += error * error;
+        }
+
+        int predictions = latencies.length;
+        long totalLatency = 0;
+        for (long latency : latencies) {
+            totalLatency += latency;
+        }
+        Arrays.sort(latencies);
+        long nodes = 0;
+        for (RegressionTree tree : model.getTrees()) {
+            nodes += tree.nodeCount();
+        }
+        Report report = new Report(city, Model.FOREST, set, initialDays, predictions, absError / predictions,
+            Math.sqrt(squaredError / predictions), fits, trainNanos / 1_000_000,
+            totalLatency / 1000.0 / predictions, latencies[(int) Math.ceil(predictions * 0.99) - 1] / 1000.0,
+            nodes * NODE_BYTES, peakHeap);
+        LOGGER.info(String.format("Backtested %s %s from %s: MAE %.3f over %d days",
+            city, set, LocalDate.ofEpochDay(data.days[initialDays]), report.mae(), predictions));
+        return report;
+    }
+
+    Report runOnline(String city, Dataset data, FeatureSet set, OnlineRegressor model) {
+        int n = data.size();
+        if (n <= initialDays) {
+            throw new IllegalArgumentException("Only " + n + " usable days for " + city
+                + ", need more than " + initialDays);
+        }
+        double[][] columns = data.features[set.ordinal()];
+        double[] row = new double[set.width];
+        long[] latencies = new long[n - initialDays];
+
+        long trainNanos = 0;
+        double absError = 0.0;
+        double squaredError = 0.0;
+        for (int i = 0; i < n; i++) {
+            for (int c = 0; c < set.width; c++) {
+                row[c] = columns[c][i];
+            }
+            if (i >= initialDays) {
+                long start = System.nanoTime();
+                double predicted = model.predict(row);
+                latencies[i - initialDays] = System.nanoTime() - start;
+                double error = predicted - data.target[i];
+                absError += Math.abs(error);
+                squaredError += error * error;
+            }
+            // Day i's outcome is known once it has been predicted
+            long start = System.nanoTime();
+            model.update(row, data.target[i]);
+            trainNanos += System.nanoTime() - start;
+        }
+
+        int predictions = latencies.length;
+        long totalLatency = 0;
+        for (long latency : latencies) {
+            totalLatency += latency;
+        }
+        Arrays.sort(latencies);
+        // Weights, means and squared deviations per feature
+        Report report = new Report(city, Model.ONLINE, set, initialDays, predictions, absError / predictions,
+            Math.sqrt(squaredError / predictions), n, trainNanos / 1_000_000,
+            totalLatency / 1000.0 / predictions, latencies[(int) Math.ceil(predictions * 0.99) - 1] / 1000.0,
+            3L * set.width * Double.BYTES, Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        LOGGER.info(String.format("Backtested %s online %s from %s: MAE %.3f over %d days",
+            city, set, LocalDate.ofEpochDay(data.days[initialDays]), report.mae(), predictions));
+        return report;
+    }
+}
@@ -0,0 +1,120 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Prepares the models of many cities at once. Every city is a fork/join task on one pool, and the
+ * trees inside each forest are forked into the same pool, so idle workers pick up trees from
+ * whichever city still has work left instead of waiting for the slowest city.
+ */
+public class BatchTrainer {
+    private static final Logger LOGGER = Logger.getLogger(BatchTrainer.class.getName());
+    private static final Metrics.Counter FAILURES =
+        Metrics.counter("training_errors_total", "Cities whose models failed to load or train");
+
+    /** Outcome for one city; error is null on success. */
+    public record Result(String city, long millis, Throwable error) {
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+
+    /** Totals for a batch, with per-city results in input order. */
+    public record Summary(List<Result> results, long wallMillis) {
+        public long failures() {
+            return results.stream().filter(result -> !result.succeeded()).count();
+        }
+
+        /** Sum of per-city times, i.e. roughly what training them one by one would take. */
+        public long cityMillis() {
+            return results.stream().mapToLong(Result::millis).sum();
+        }
+    }
+
+    private final TemperaturePredictor predictor;
+    private final Forecaster forecaster;
+    private final int parallelism;
+
+    public BatchTrainer(TemperaturePredictor predictor) {
+        this(predictor, null);
+    }
+
+    /**
+     * @param forecaster forecast models to prepare alongside the next-day model, or null to skip them
+     */
+    public BatchTrainer(TemperaturePredictor predictor, Forecaster forecaster) {
+        this(predictor, forecaster, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchTrainer(TemperaturePredictor predictor, Forecaster forecaster, int parallelism) {
+        this.predictor = predictor;
+        this.forecaster = forecaster;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Loads or trains every city's model. With {@code force}, stored models are ignored and every
+     * city is refitted from its history. Failures are reported per city rather than thrown.
+     */
+    public Summary trainAll(List<String> cities, boolean force) {
+        long start = System.nanoTime();
+        AtomicInteger done = new AtomicInteger();
+        Result[] results = new Result[cities.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(cities.size());
+        for (int i = 0; i < cities.size(); i++) {
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                results[index] = train(cities.get(index), force);
+                logProgress(results[index], done.incrementAndGet(), cities.size());
+            }));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        } finally {
+            pool.shutdown();
+        }
+
+        Summary summary = new Summary(List.of(results), (System.nanoTime() - start) / 1_000_000);
+        LOGGER.info(String.format("Prepared %d cities in %d ms on %d threads (%d ms of city time, %d failed)",
+            cities.size(), summary.wallMillis(), parallelism, summary.cityMillis(), summary.failures()));
+        return summary;
+    }
+
+    private Result train(String city, boolean force) {
+        long start = System.nanoTime();
+        try {
+            if (force) {
+                predictor.retrain(city);
+            } else {
+                predictor.modelFor(city);
+            }
+            if (forecaster != null && force) {
+                forecaster.retrain(city);
+            } else if (forecaster != null) {
+                forecaster.modelsFor(city);
+            }
+            return new Result(city, (System.nanoTime() - start) / 1_000_000, null);
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            return new Result(city, (System.nanoTime() - start) / 1_000_000, e);
+        }
+    }
+
+    private static void logProgress(Result result, int done, int total) {
+        if (result.succeeded()) {
+            LOGGER.log(Level.INFO, "[{0,number,#}/{1,number,#}] {2} ready in {3,number,#} ms",
+                new Object[]{done, total, result.city(), result.millis()});
+        } else {
+            LOGGER.warning(String.format("[%d/%d] %s failed: %s",
+                done, total, result.city(), result.error().getMessage()));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The cities the application serves, in display order. Cities come from the {@code weatherapp.cities}
+ * property (comma separated) when it is set, otherwise from the history directory, where every
+ * {@code "<city> <from> to <to>.csv"} export adds one city. Lookups ignore case.
+ */
+public final class CityRegistry {
+    private static final Logger LOGGER = Logger.getLogger(CityRegistry.class.getName());
+    private static final Pattern HISTORY_FILE =
+        Pattern.compile("(.+?) \\d{4}-\\d{2}-\\d{2} to \\d{4}-\\d{2}-\\d{2}\\.csv", Pattern.CASE_INSENSITIVE);
+    private static final List<String> DEFAULT_CITIES = List.of("Chennai", "Bangalore", "Delhi");
+
+    private final List<String> names;
+    private final Map<String, Integer> indexByKey = new HashMap<>();
+
+    public CityRegistry(List<String> names) {
+        List<String> unique = new ArrayList<>(names.size());
+        for (String name : names) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty() && indexByKey.putIfAbsent(key(trimmed), unique.size()) == null) {
+                unique.add(trimmed);
+            }
+        }
+        if (unique.isEmpty()) {
+            throw new IllegalArgumentException("City registry is empty");
+        }
+        this.names = Collections.unmodifiableList(unique);
+    }
+
+    /**
+     * Uses the configured list if {@code configured} is non-blank, otherwise the cities discovered in
+     * {@code historyDir}, falling back to the original three if the directory has none.
+     */
+    public static CityRegistry load(String configured, Path historyDir) {
+        if (configured != null && !configured.isBlank()) {
+            return new CityRegistry(List.of(configured.split(",")));
+        }
+        List<String> discovered = discover(historyDir);
+        if (discovered.isEmpty()) {
+            LOGGER.log(Level.WARNING, "No history files in {0}; using the default cities", historyDir);
+            return new CityRegistry(DEFAULT_CITIES);
+        }
+        LOGGER.log(Level.INFO, "Discovered {0,number,#} cities in {1}", new Object[]{discovered.size(), historyDir});
+        return new CityRegistry(discovered);
+    }
+
+    /** City names of the history files in a directory, title-cased and sorted. */
+    static List<String> discover(Path historyDir) {
+        if (historyDir == null || !Files.isDirectory(historyDir)) {
+            return List.of();
+        }
+        Map<String, String> found = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(historyDir, "*.csv")) {
+            for (Path file : files) {
+                String city = cityOf(file);
+                if (city != null) {
+                    found.putIfAbsent(key(city), titleCase(city));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list history directory " + historyDir, e);
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /** The city part of a history file name, or null if the name does not follow the export pattern. */
+    static String cityOf(Path file) {
+        Matcher matcher = HISTORY_FILE.matcher(file.getFileName().toString());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String get(int index) {
+        return names.get(index);
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    /** Position of a city, ignoring case, or -1 if it is not registered. */
+    public int indexOf(String city) {
+        Integer index = indexByKey.get(key(city));
+        return index == null ? -1 : index;
+    }
+
+    /** The registered spelling of a city. */
+    public String canonical(String city) {
+        int index = indexOf(city);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unsupported city: " + city);
+        }
+        return names.get(index);
+    }
+
+    private static String key(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static String titleCase(String city) {
+        StringBuilder out = new StringBuilder(city.length());
+        boolean start = true;
+        for (int i = 0; i < city.length(); i++) {
+            char c = city.charAt(i);
+            out.append(start ? Character.toUpperCase(c) : Character.toLowerCase(c));
+            start = c == ' ' || c == '-';
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column vectors projected from a CSV by {@link ColumnarCsvReader}.
+ */
+public final class ColumnTable {
+    private final int rows;
+    private final Map<String, double[]> doubles;
+    private final Map<String, long[]> longs;
+
+    private ColumnTable(int rows, Map<String, double[]> doubles, Map<String, long[]> longs) {
+        this.rows = rows;
+        this.doubles = doubles;
+        this.longs = longs;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public double[] doubles(String column) {
+        double[] values = doubles.get(column);
+        if (values == null) {
+            throw new IllegalArgumentException("No numeric column '" + column + "'");
+        }
+        return values;
+    }
+
+    public long[] epochDays(String column) {
+        long[] values = longs.get(column);
+        if (values == null) {
+            throw new IllegalArgumentException("No date column '" + column + "'");
+        }
+        return values;
+    }
+
+    static final class Builder {
+        private final ColumnarCsvReader.Column[] columns;
+        private final double[][] doubleData;
+        private final long[][] longData;
+        private int size;
+
+        Builder(ColumnarCsvReader.Column[] columns) {
+            this.columns = columns;
+            this.doubleData = new double[columns.length][];
+            this.longData = new long[columns.length][];
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c].type == ColumnarCsvReader.Type.EPOCH_DAY) {
+                    longData[c] = new long[256];
+                } else {
+                    doubleData[c] = new double[256];
+                }
+            }
+        }
+
+        void append(ColumnarCsvReader.Row row) {
+            for (int c = 0; c < columns.length; c++) {
+                if (longData[c] != null) {
+                    if (size == longData[c].length) {
+                        longData[c] = Arrays.copyOf(longData[c], size * 2);
+                    }
+                    longData[c][size] = row.getEpochDay(c);
+                } else {
+                    if (size == doubleData[c].length) {
+                        doubleData[c] = Arrays.copyOf(doubleData[c], size * 2);
+                    }
+                    doubleData[c][size] = row.getDouble(c);
+                }
+            }
+            size++;
+        }
+
+        ColumnTable build() {
+            Map<String, double[]> doubles = new HashMap<>();
+            Map<String, long[]> longs = new HashMap<>();
+            for (int c = 0; c < columns.length; c++) {
+                if (longData[c] != null) {
+                    longs.put(columns[c].name, Arrays.copyOf(longData[c], size));
+                } else {
+                    doubles.put(columns[c].name, Arrays.copyOf(doubleData[c], size));
+                }
+            }
+            return new ColumnTable(size, doubles, longs);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming reader for Visual Crossing history CSVs that projects selected columns into primitive values.
+ *
+ * The reader works on raw bytes: skipped cells (including quoted ones such as {@code stations}) are never
+ * materialised and projected cells are parsed in place, so no String or boxed value is created per cell.
+ * Numeric cells become doubles (NaN when empty or not numeric); date cells become epoch days.
+ */
+public final class ColumnarCsvReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final double[] POWERS_OF_TEN = new double[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    /** Marks an epoch-day cell that was empty or unparseable. */
+    public static final long MISSING_DAY = Long.MIN_VALUE;
+
+    public enum Type { DOUBLE, EPOCH_DAY }
+
+    /** A column to project, by header name. */
+    public static final class Column {
+        final String name;
+        final Type type;
+
+        private Column(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public static Column doubles(String name) {
+            return new Column(name, Type.DOUBLE);
+        }
+
+        public static Column epochDays(String name) {
+            return new Column(name, Type.EPOCH_DAY);
+        }
+    }
+
+    /** Receives each parsed row. The row object is reused, so copy values out before returning. */
+    public interface RowVisitor {
+        void accept(Row row);
+    }
+
+    /** Projected values of the current row, indexed by position in the requested column list. */
+    public static final class Row {
+        private final double[] doubles;
+        private final long[] longs;
+        private long number;
+
+        Row(int columns) {
+            doubles = new double[columns];
+            longs = new long[columns];
+        }
+
+        public double getDouble(int column) {
+            return doubles[column];
+        }
+
+        public long getEpochDay(int column) {
+            return longs[column];
+        }
+
+        /** Zero-based data row number within the file, excluding the header. */
+        public long number() {
+            return number;
+        }
+    }
+
+    private final Column[] columns;
+
+    public ColumnarCsvReader(Column... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column must be projected");
+        }
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Reads the projected columns into memory as primitive column vectors.
+     */
+    public ColumnTable read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    public ColumnTable read(InputStream in) throws IOException {
+        ColumnTable.Builder builder = new ColumnTable.Builder(columns);
+        stream(in, builder::append);
+        return builder.build();
+    }
+
+    /**
+     * Parses the file row by row with constant memory, handing each row to the visitor.
+     */
+    public void stream(Path file, RowVisitor visitor) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            stream(in, visitor);
+        }
+    }
+
+    public void stream(InputStream in, RowVisitor visitor) throws IOException {
+        new Parser(in, visitor).run();
+    }
+
+    private final class Parser {
+        private final InputStream in;
+        private final RowVisitor visitor;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final Row row = new Row(columns.length);
+
+        // Maps a CSV field index to the projected column index, or -1 when skipped
+        private int[] projection;
+
+        private int field;
+        private int target = -1;
+        private boolean quoted;
+        private boolean quotePending;
+        private boolean rowHasData;
+
+        // Number / date accumulator for the current projected cell
+        private long mantissa;
+        private int digits;
+        private int scale;
+        private boolean negative;
+        private boolean afterPoint;
+        private boolean exponentPart;
+        private boolean exponentNegative;
+        private int exponent;
+        private boolean invalid;
+        private boolean empty = true;
+        private int dateParts;
+        private int[] date = new int[3];
+        private boolean dateDone;
+
+        // Header cells are the only ones decoded to Strings
+        private List<String> header = new ArrayList<>();
+        private byte[] headerCell = new byte[64];
+        private int headerLength;
+
+        Parser(InputStream in, RowVisitor visitor) {
+            this.in = in;
+            this.visitor = visitor;
+        }
+
+        void run() throws IOException {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    consume(buffer[i]);
+                }
+            }
+            if (quotePending) {
+                quotePending = false;
+                quoted = false;
+            }
+            if (rowHasData || field > 0) {
+                endRow();
+            }
+            if (projection == null) {
+                throw new IOException("CSV has no header row");
+            }
+        }
+
+        private void consume(byte b) {
+            if (quotePending) {
+                quotePending = false;
+                if (b == '"') {
+                    cellByte(b); // escaped quote inside a quoted cell
+                    return;
+                }
+                quoted = false;
+            }
+            if (quoted) {
+                if (b == '"') {
+                    quotePending = true;
+                } else {
+                    cellByte(b);
+                }
+                return;
+            }
+            switch (b) {
+                case '"':
+                    quoted = true;
+                    rowHasData = true;
+                    break;
+                case ',':
+                    rowHasData = true;
+                    endCell();
+                    field++;
+                    startCell();
+                    break;
+                case '\n':
+                    if (rowHasData || field > 0) {
+                        endRow();
+                    }
+                    break;
+                case '\r':
+                    break;
+                default:
+                    rowHasData = true;
+                    cellByte(b);
+            }
+        }
+
+        private void startCell() {
+            if (projection == null) {
+                headerLength = 0;
+                return;
+            }
+            target = field < projection.length ? projection[field] : -1;
+            if (target >= 0) {
+                mantissa = 0;
+                digits = 0;
+                scale = 0;
+                negative = false;
+                afterPoint = false;
+                exponentPart = false;
+                exponentNegative = false;
+                exponent = 0;
+                invalid = false;
+                empty = true;
+                dateParts = 0;
+                date[0] = date[1] = date[2] = 0;
+                dateDone = false;
+            }
+        }
+
+        private void cellByte(byte b) {
+            if (projection == null) {
+                if (headerLength == headerCell.length) {
+                    headerCell = Arrays.copyOf(headerCell, headerLength * 2);
+                }
+                headerCell[headerLength++] = b;
+                return;
+            }
+            if (target < 0) {
+                return;
+            }
+            empty = false;
+            if (columns[target].type == Type.EPOCH_DAY) {
+                dateByte(b);
+            } else {
+                numberByte(b);
+            }
+        }
+
+        private void numberByte(byte b) {
+            if (b >= '0' && b <= '9') {
+                if (exponentPart) {
+                    exponent = exponent * 10 + (b - '0');
+                } else if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (afterPoint) {
+                        scale++;
+                    }
+                } else if (!afterPoint) {
+                    scale--; // beyond long precision: keep magnitude, drop the digit
+                }
+            } else if (b == '.' && !afterPoint && !exponentPart) {
+                afterPoint = true;
+            } else if (b == '-' && digits == 0 && !negative && !exponentPart) {
+                negative = true;
+            } else if (b == '-' && exponentPart && exponent == 0) {
+                exponentNegative = true;
+            } else if ((b == 'e' || b == 'E') && digits > 0 && !exponentPart) {
+                exponentPart = true;
+            } else if (b == '+' || b == ' ') {
+                // tolerated
+            } else {
+                invalid = true;
+            }
+        }
+
+        private void dateByte(byte b) {
+            if (dateDone) {
+                return;
+            }
+            if (b >= '0' && b <= '9') {
+                date[dateParts] = date[dateParts] * 10 + (b - '0');
+            } else if (b == '-' && dateParts < 2) {
+                dateParts++;
+            } else if (b == 'T' || b == ' ') {
+                dateDone = true; // ignore any time-of-day suffix
+            } else {
+                invalid = true;
+            }
+        }
+
+        private void endCell() {
+            if (projection == null) {
+                header.add(new String(headerCell, 0, headerLength, StandardCharsets.UTF_8).trim());
+                return;
+            }
+            if (target < 0) {
+                return;
+            }
+            if (columns[target].type == Type.EPOCH_DAY) {
+                row.longs[target] = (empty || invalid || dateParts != 2)
+                    ? MISSING_DAY : epochDay(date[0], date[1], date[2]);
+                return;
+            }
+            if (empty || invalid || digits == 0) {
+                row.doubles[target] = Double.NaN;
+                return;
+            }
+            int power = (exponentNegative ? -exponent : exponent) - scale;
+            double value = mantissa;
+            if (power < 0) {
+                value = -power < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-power] : value * Math.pow(10, power);
+            } else if (power > 0) {
+                value = power < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[power] : value * Math.pow(10, power);
+            }
+            row.doubles[target] = negative ? -value : value;
+        }
+
+        private void endRow() {
+            endCell();
+            if (projection == null) {
+                projection = buildProjection(header);
+                header = null;
+                headerCell = null;
+            } else {
+                // Rows shorter than the header leave the remaining projected columns missing
+                for (int f = field + 1; f < projection.length; f++) {
+                    int p = projection[f];
+                    if (p >= 0) {
+                        row.doubles[p] = Double.NaN;
+                        row.longs[p] = MISSING_DAY;
+                    }
+                }
+                visitor.accept(row);
+                row.number++;
+            }
+            field = 0;
+            rowHasData = false;
+            startCell();
+        }
+    }
+
+    private int[] buildProjection(List<String> header) {
+        int[] projection = new int[header.size()];
+        Arrays.fill(projection, -1);
+        for (int c = 0; c < columns.length; c++) {
+            int index = header.indexOf(columns[c].name);
+            if (index < 0) {
+                throw new IllegalArgumentException("Column '" + columns[c].name + "' not found in CSV header");
+            }
+            projection[index] = c;
+        }
+        return projection;
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date, without allocating a LocalDate.
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,286 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Daily feature engineering over the observation fields: forward-filled raw values, wind vector
+ * components, day-of-year seasonality, lagged temperatures and rolling means and variances.
+ *
+ * State is a few fixed-size ring buffers with running Welford statistics, so {@link #push} costs
+ * O(1) per day whether it is fed a whole history in one pass or one new observation at a time.
+ * A gap in the days resets the state, since lags and windows are defined over consecutive days.
+ */
+public final class FeaturePipeline {
+    private static final int[] TEMP_LAGS = {1, 2, 3, 7};
+    private static final int SHORT_WINDOW = 7;
+    private static final int LONG_WINDOW = 30;
+
+    private static final ObservationField[] RAW = {
+        ObservationField.TEMP, ObservationField.HUMIDITY, ObservationField.WIND_SPEED, ObservationField.DEW,
+        ObservationField.SEA_LEVEL_PRESSURE, ObservationField.CLOUD_COVER, ObservationField.SOLAR_RADIATION,
+        ObservationField.PRECIP};
+
+    /** Column names of a feature row, in order. */
+    public static final List<String> FEATURE_NAMES = List.of(
+        "temp", "humidity", "windspeed", "dew", "sealevelpressure", "cloudcover", "solarradiation", "precip",
+        "wind_u", "wind_v", "doy_sin", "doy_cos",
+        "temp_lag1", "temp_lag2", "temp_lag3", "temp_lag7", "pressure_change",
+        "temp_mean7", "temp_var7", "temp_mean30", "temp_var30", "humidity_mean7", "precip_mean7");
+
+    public static final int WIDTH = FEATURE_NAMES.size();
+
+    /** Feature-major output of {@link #transform}: columns[feature][row], with rows not yet warmed up flagged. */
+    public record FeatureMatrix(long[] days, double[][] columns, boolean[] ready) {
+        public int rows() {
+            return days.length;
+        }
+    }
+
+    private final double[] lastValid = new double[ObservationField.count()];
+    private final Rolling temp30 = new Rolling(LONG_WINDOW);
+    private final Rolling temp7 = new Rolling(SHORT_WINDOW);
+    private final Rolling humidity7 = new Rolling(SHORT_WINDOW);
+    private final Rolling precip7 = new Rolling(SHORT_WINDOW);
+    private double lastPressure = Double.NaN;
+    private long lastDay = Long.MIN_VALUE;
+
+    public FeaturePipeline() {
+        reset();
+    }
+
+    private FeaturePipeline(FeaturePipeline other) {
+        System.arraycopy(other.lastValid, 0, lastValid, 0, lastValid.length);
+        temp30.copyFrom(other.temp30);
+        temp7.copyFrom(other.temp7);
+        humidity7.copyFrom(other.humidity7);
+        precip7.copyFrom(other.precip7);
+        lastPressure = other.lastPressure;
+        lastDay = other.lastDay;
+    }
+
+    /** An independent pipeline in the same state, to see a day's features without committing it. */
+    public FeaturePipeline copy() {
+        return new FeaturePipeline(this);
+    }
+
+    /** Forgets all history, as after a gap. */
+    public void reset() {
+        Arrays.fill(lastValid, Double.NaN);
+        temp30.clear();
+        temp7.clear();
+        humidity7.clear();
+        precip7.clear();
+        lastPressure = Double.NaN;
+        lastDay = Long.MIN_VALUE;
+    }
+
+    /** The most recent day pushed, or Long.MIN_VALUE if none. */
+    public long lastDay() {
+        return lastDay;
+    }
+
+    /**
+     * Adds the next day and writes its {@link #WIDTH} features to {@code out} from {@code offset}.
+     *
+     * @param values observation values indexed by {@link ObservationField} ordinal; NaN for missing
+     * @return true if every feature is defined, false while the windows are still filling
+     */
+    public boolean push(long epochDay, double[] values, double[] out, int offset) {
+        if (lastDay != Long.MIN_VALUE && epochDay <= lastDay) {
+            throw new IllegalArgumentException("Days must increase: " + epochDay + " after " + lastDay);
+        }
+        if (lastDay != Long.MIN_VALUE && epochDay != lastDay + 1) {
+            reset();
+        }
+        lastDay = epochDay;
+
+        for (int f = 0; f < values.length; f++) {
+            if (!Double.isNaN(values[f])) {
+                lastValid[f] = values[f];
+            }
+        }
+        double temp = lastValid[ObservationField.TEMP.ordinal()];
+        double humidity = lastValid[ObservationField.HUMIDITY.ordinal()];
+        double pressure = lastValid[ObservationField.SEA_LEVEL_PRESSURE.ordinal()];
+        double precip = lastValid[ObservationField.PRECIP.ordinal()];
+
+        int i = offset;
+        for (ObservationField field : RAW) {
+            out[i++] = lastValid[field.ordinal()];
+        }
+
+        // Direction is where the wind blows from, so the vector points the opposite way
+        double speed = lastValid[ObservationField.WIND_SPEED.ordinal()];
+        double direction = Math.toRadians(lastValid[ObservationField.WIND_DIR.ordinal()]);
+        out[i++] = -speed * Math.sin(direction);
+        out[i++] = -speed * Math.cos(direction);
+
+        double angle = 2 * Math.PI * (dayOfYear(epochDay) - 1) / 365.25;
+        out[i++] = Math.sin(angle);
+        out[i++] = Math.cos(angle);
+
+        // Lags come from the long window's ring before today is added
+        for (int lag : TEMP_LAGS) {
+            out[i++] = temp30.ago(lag - 1);
+        }
+        out[i++] = pressure - lastPressure;
+        lastPressure = pressure;
+
+        temp30.add(temp);
+        temp7.add(temp);
+        humidity7.add(humidity);
+        precip7.add(precip);
+        out[i++] = temp7.mean();
+        out[i++] = temp7.variance();
+        out[i++] = temp30.mean();
+        out[i++] = temp30.variance();
+        out[i++] = humidity7.mean();
+        out[i++] = precip7.mean();
+
+        for (int k = offset; k < i; k++) {
+            if (Double.isNaN(out[k])) {
+                return false;
+            }
+        }
+        return temp30.isFull();
+    }
+
+    /**
+     * Runs a fresh pipeline over whole columns in one pass.
+     *
+     * @param fields columns indexed by {@link ObservationField} ordinal; a null column counts as missing
+     */
+    public static FeatureMatrix transform(long[] days, double[][] fields, int n) {
+        FeaturePipeline pipeline = new FeaturePipeline();
+        double[][] columns = new double[WIDTH][n];
+        boolean[] ready = new boolean[n];
+        double[] values = new double[ObservationField.count()];
+        double[] row = new double[WIDTH];
+        for (int r = 0; r < n; r++) {
+            for (int f = 0; f < values.length; f++) {
+                values[f] = fields[f] == null ? Double.NaN : fields[f][r];
+            }
+            if (days[r] == ColumnarCsvReader.MISSING_DAY) {
+                pipeline.reset();
+                Arrays.fill(row, Double.NaN);
+            } else {
+                ready[r] = pipeline.push(days[r], values, row, 0);
+            }
+            for (int c = 0; c < WIDTH; c++) {
+                columns[c][r] = row[c];
+            }
+        }
+        return new FeatureMatrix(Arrays.copyOf(days, n), columns, ready);
+    }
+
+    /**
+     * Reads every observation field present in a history CSV and transforms it.
+     */
+    public static FeatureMatrix fromCsv(Path csv) {
+        ColumnTable table = readCsv(csv);
+        return transform(table.epochDays("datetime"), fields(table), table.rows());
+    }
+
+    /** Reads the datetime column and every {@link ObservationField} column of a history CSV. */
+    static ColumnTable readCsv(Path csv) {
+        ColumnarCsvReader.Column[] wanted = new ColumnarCsvReader.Column[ObservationField.count() + 1];
+        wanted[0] = ColumnarCsvReader.Column.epochDays("datetime");
+        for (int f = 0; f < ObservationField.count(); f++) {
+            wanted[f + 1] = ColumnarCsvReader.Column.doubles(ObservationField.at(f).csvName());
+        }
+        try {
+            return new ColumnarCsvReader(wanted).read(csv);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read history CSV " + csv, e);
+        }
+    }
+
+    /** The observation columns of a table from {@link #readCsv}, indexed by ordinal. */
+    static double[][] fields(ColumnTable table) {
+        double[][] fields = new double[ObservationField.count()][];
+        for (int f = 0; f < fields.length; f++) {
+            fields[f] = table.doubles(ObservationField.at(f).csvName());
+        }
+        return fields;
+    }
+
+    private static int dayOfYear(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).getDayOfYear();
+    }
+
+    /**
+     * Fixed-size window with a running mean and sum of squared deviations (Welford), updated in O(1)
+     * as values enter and, once full, the oldest leaves. NaN is not a value: adding it changes nothing,
+     * so a field with nothing to forward-fill yet leaves its window short rather than poisoning it.
+     */
+    static final class Rolling {
+        private final double[] ring;
+        private int count;
+        private int next;
+        private double mean;
+        private double m2;
+
+        Rolling(int size) {
+            this.ring = new double[size];
+        }
+
+        void add(double x) {
+            if (Double.isNaN(x)) {
+                return;
+            }
+            if (count < ring.length) {
+                count++;
+                double delta = x - mean;
+                mean += delta / count;
+                m2 += delta * (x - mean);
+            } else {
+                double old = ring[next];
+                double oldMean = mean;
+                mean += (x - old) / count;
+                m2 += (x - old) * (x - mean + old - oldMean);
+            }
+            ring[next] = x;
+            next = (next + 1) % ring.length;
+        }
+
+        /** The value added {@code k} additions ago (0 = latest), or NaN if the window is that short. */
+        double ago(int k) {
+            if (k >= count) {
+                return Double.NaN;
+            }
+            return ring[(next - 1 - k + 2 * ring.length) % ring.length];
+        }
+
+        boolean isFull() {
+            return count == ring.length;
+        }
+
+        double mean() {
+            return count == 0 ? Double.NaN : mean;
+        }
+
+        /** Sample variance (n - 1), as pandas' rolling var. */
+        double variance() {
+            return count < 2 ? Double.NaN : Math.max(m2, 0.0) / (count - 1);
+        }
+
+        void copyFrom(Rolling other) {
+            System.arraycopy(other.ring, 0, ring, 0, ring.length);
+            count = other.count;
+            next = other.next;
+            mean = other.mean;
+            m2 = other.m2;
+        }
+
+        void clear() {
+            count = 0;
+            next = 0;
+            mean = 0.0;
+            m2 = 0.0;
+        }
+    }
+}
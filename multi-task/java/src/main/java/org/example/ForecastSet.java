@@ -0,0 +1,115 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Training rows for the multi-day forecast. For each day t and horizon h in 1..horizon the features
+ * are {temp(t), humidity(t+h), windspeed(t+h), h} and the targets are temp, tempmax and tempmin of
+ * day t+h, so one forest per target covers the whole horizon. Pairs are formed by calendar day,
+ * so gaps in the data never pair days that are further apart than h.
+ */
+final class ForecastSet {
+    static final int FEATURES = 4;
+    static final int TARGETS = 3;
+
+    private final double[][] features;
+    private final double[][] targets;
+
+    private ForecastSet(double[][] features, double[][] targets) {
+        this.features = features;
+        this.targets = targets;
+    }
+
+    /**
+     * Reads the history CSV and appends any observed days after its last day.
+     */
+    static ForecastSet build(Path csv, ObservationStore.Range observed, int horizon) {
+        ColumnTable table;
+        try {
+            table = new ColumnarCsvReader(
+                ColumnarCsvReader.Column.epochDays("datetime"),
+                ColumnarCsvReader.Column.doubles("temp"),
+                ColumnarCsvReader.Column.doubles("tempmax"),
+                ColumnarCsvReader.Column.doubles("tempmin"),
+                ColumnarCsvReader.Column.doubles("humidity"),
+                ColumnarCsvReader.Column.doubles("windspeed")).read(csv);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read history CSV " + csv, e);
+        }
+        long[] days = table.epochDays("datetime");
+        double[][] columns = {
+            table.doubles("temp"), table.doubles("tempmax"), table.doubles("tempmin"),
+            table.doubles("humidity"), table.doubles("windspeed")};
+        int n = table.rows();
+
+        if (observed != null && observed.size() > 0) {
+            ObservationField[] fields = {ObservationField.TEMP, ObservationField.TEMP_MAX, ObservationField.TEMP_MIN,
+                ObservationField.HUMIDITY, ObservationField.WIND_SPEED};
+            long last = n > 0 ? days[n - 1] : Long.MIN_VALUE;
+            int skip = 0;
+            while (skip < observed.size() && observed.days()[skip] <= last) {
+                skip++;
+            }
+            int extra = observed.size() - skip;
+            days = Arrays.copyOf(days, n + extra);
+            System.arraycopy(observed.days(), skip, days, n, extra);
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], n + extra);
+                System.arraycopy(observed.column(fields[c]), skip, columns[c], n, extra);
+            }
+            n += extra;
+        }
+        return of(days, columns[0], columns[1], columns[2], columns[3], columns[4], n, horizon);
+    }
+
+    static ForecastSet of(long[] days, double[] temp, double[] tempMax, double[] tempMin,
+                          double[] humidity, double[] windspeed, int n, int horizon) {
+        double[][] features = new double[FEATURES][n * horizon];
+        double[][] targets = new double[TARGETS][n * horizon];
+        int size = 0;
+        for (int t = 0; t < n; t++) {
+            if (Double.isNaN(temp[t]) || days[t] == ColumnarCsvReader.MISSING_DAY) {
+                continue;
+            }
+            // Days are sorted, so the days within the horizon directly follow t
+            for (int d = t + 1; d < n && days[d] - days[t] <= horizon; d++) {
+                int h = (int) (days[d] - days[t]);
+                if (h < 1 || Double.isNaN(humidity[d]) || Double.isNaN(windspeed[d])
+                    || Double.isNaN(temp[d]) || Double.isNaN(tempMax[d]) || Double.isNaN(tempMin[d])) {
+                    continue;
+                }
+                features[0][size] = temp[t];
+                features[1][size] = humidity[d];
+                features[2][size] = windspeed[d];
+                features[3][size] = h;
+                targets[0][size] = temp[d];
+                targets[1][size] = tempMax[d];
+                targets[2][size] = tempMin[d];
+                size++;
+            }
+        }
+        for (int f = 0; f < FEATURES; f++) {
+            features[f] = Arrays.copyOf(features[f], size);
+        }
+        for (int k = 0; k < TARGETS; k++) {
+            targets[k] = Arrays.copyOf(targets[k], size);
+        }
+        return new ForecastSet(features, targets);
+    }
+
+    int size() {
+        return targets[0].length;
+    }
+
+    /** Feature-major columns: temp, humidity, windspeed, horizon. */
+    double[][] features() {
+        return features;
+    }
+
+    /** Target column k: 0 = temp, 1 = tempmax, 2 = tempmin. */
+    double[] target(int k) {
+        return targets[k];
+    }
+}
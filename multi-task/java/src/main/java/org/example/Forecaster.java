@@ -0,0 +1,169 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Multi-day temperature forecast per city: mean, max and min temperature for each of the next
+ * {@link #HORIZON_DAYS} days. Three forests per city (one per target) take the horizon as a feature,
+ * and a forecast is one batched call per forest over a row-major matrix of all horizons.
+ */
+public class Forecaster {
+    private static final Logger LOGGER = Logger.getLogger(Forecaster.class.getName());
+
+    public static final int HORIZON_DAYS = WeatherFetcher.DEFAULT_HORIZON_DAYS;
+
+    // Each forest trains on every horizon's rows, about HORIZON_DAYS times the history, so unbounded trees
+    // grow to a leaf per row; these limits keep each city's three forests small to fit, store and load
+    static final int FOREST_TREES = 50;
+    static final int FOREST_MAX_DEPTH = 16;
+    static final int FOREST_MIN_SAMPLES_LEAF = 5;
+
+    private static final Metrics.Timer PREDICT_LATENCY =
+        Metrics.timer("prediction_seconds", "Model prediction latency", "model", "forecast");
+    private static final Metrics.Timer TRAIN_DURATION =
+        Metrics.timer("training_seconds", "Model fitting time, excluding loading the history", "model", "forecast");
+
+    /** Predicted temperatures for one day. */
+    public record ForecastDay(LocalDate date, int horizon, double temp, double tempMax, double tempMin) {
+    }
+
+    /** A city's forecast, ordered by horizon. Days whose inputs were missing are left out. */
+    public record Forecast(String city, List<ForecastDay> days) {
+        public Forecast {
+            days = List.copyOf(days);
+        }
+    }
+
+    private final Path historyDir;
+    private final ModelStore modelStore;
+    private final ObservationStore observations;
+    private final ModelCache<RandomForestRegressor[]> models = new ModelCache<>();
+
+    /**
+     * @param modelStore   where trained models are cached between runs, or null to always train
+     * @param observations daily observations recorded after the CSV history, or null to use the CSV only
+     */
+    public Forecaster(Path historyDir, ModelStore modelStore, ObservationStore observations) {
+        this.historyDir = historyDir;
+        this.modelStore = modelStore;
+        this.observations = observations;
+    }
+
+    /**
+     * Forecasts from today's current temperature and the fetched humidity and wind for the coming days.
+     * Returns an empty forecast when the weather has no current conditions.
+     */
+    public Forecast forecast(WeatherFetcher.CityWeather weather) {
+        List<WeatherTimeline.Day> days = weather.days();
+        if (weather.current() == null || Double.isNaN(weather.current().temp()) || days.size() < 2) {
+            return new Forecast(weather.city(), List.of());
+        }
+        LocalDate today = days.get(0).date() != null ? days.get(0).date() : LocalDate.now();
+
+        int[] horizons = new int[HORIZON_DAYS];
+        double[] matrix = new double[HORIZON_DAYS * ForecastSet.FEATURES];
+        int rows = 0;
+        for (int h = 1; h <= HORIZON_DAYS && h < days.size(); h++) {
+            WeatherTimeline.Day day = days.get(h);
+            if (Double.isNaN(day.humidity()) || Double.isNaN(day.windspeed())) {
+                continue;
+            }
+            int offset = rows * ForecastSet.FEATURES;
+            matrix[offset] = weather.current().temp();
+            matrix[offset + 1] = day.humidity();
+            matrix[offset + 2] = day.windspeed();
+            matrix[offset + 3] = h;
+            horizons[rows++] = h;
+        }
+        if (rows == 0) {
+            return new Forecast(weather.city(), List.of());
+        }
+        if (rows < HORIZON_DAYS) {
+            matrix = Arrays.copyOf(matrix, rows * ForecastSet.FEATURES);
+        }
+
+        RandomForestRegressor[] forests = modelsFor(weather.city());
+        long start = System.nanoTime();
+        double[] temp = forests[0].predictBatch(matrix);
+        double[] tempMax = forests[1].predictBatch(matrix);
+        double[] tempMin = forests[2].predictBatch(matrix);
+        PREDICT_LATENCY.stop(start);
+
+        List<ForecastDay> result = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            result.add(new ForecastDay(today.plusDays(horizons[r]), horizons[r], temp[r], tempMax[r], tempMin[r]));
+        }
+        return new Forecast(weather.city(), result);
+    }
+
+    /**
+     * Returns the city's temp, tempmax and tempmin forests, loading or training them on first use.
+     */
+    public RandomForestRegressor[] modelsFor(String city) {
+        return models.get(city, () -> train(city, false));
+    }
+
+    public boolean isTrained(String city) {
+        return models.isReady(city);
+    }
+
+    /**
+     * Refits the city's forecast models from its history even if stored ones match.
+     */
+    public RandomForestRegressor[] retrain(String city) {
+        RandomForestRegressor[] forests = train(city, true);
+        models.put(city, forests);
+        return forests;
+    }
+
+    private RandomForestRegressor[] train(String city, boolean force) {
+        long start = System.nanoTime();
+        String name = city + ".forecast";
+        String sourceKey = null;
+        if (modelStore != null) {
+            sourceKey = TemperaturePredictor.sourceKey(historyDir, observations, city);
+        }
+        if (modelStore != null && !force) {
+            RandomForestRegressor[] stored = modelStore.loadAll(name, sourceKey);
+            if (stored != null && stored.length == ForecastSet.TARGETS) {
+                LOGGER.log(Level.INFO, "Loaded stored forecast models for {0} in {1,number,#} ms",
+                    new Object[]{city, (System.nanoTime() - start) / 1_000_000});
+                return stored;
+            }
+        }
+
+        ObservationStore.Range observed = observations == null ? null
+            : observations.scan(city, LocalDate.MIN, LocalDate.now().minusDays(1));
+        ForecastSet set = ForecastSet.build(TemperaturePredictor.findHistoryFile(historyDir, city), observed, HORIZON_DAYS);
+        if (set.size() == 0) {
+            throw new IllegalStateException("No forecast training rows for " + city);
+        }
+
+        // The three targets are independent; their trees share the same fork/join pool
+        long fitStart = System.nanoTime();
+        RandomForestRegressor[] forests = new RandomForestRegressor[ForecastSet.TARGETS];
+        List<ForkJoinTask<?>> fits = new ArrayList<>(forests.length);
+        for (int k = 0; k < forests.length; k++) {
+            int target = k;
+            fits.add(ForkJoinTask.adapt(() -> forests[target] =
+                new RandomForestRegressor(FOREST_TREES, FOREST_MAX_DEPTH, FOREST_MIN_SAMPLES_LEAF,
+                    RandomForestRegressor.DEFAULT_SEED).fit(set.features(), set.target(target))));
+        }
+        ForkJoinTask.invokeAll(fits);
+        TRAIN_DURATION.stop(fitStart);
+        LOGGER.log(Level.INFO, "Trained forecast models for {0} on {1,number,#} rows in {2,number,#} ms",
+            new Object[]{city, set.size(), (System.nanoTime() - start) / 1_000_000});
+
+        if (modelStore != null) {
+            modelStore.save(name, sourceKey, forests);
+        }
+        return forests;
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+
+/**
+ * Embedded store that keeps rows in process memory, for single-node runs and tests that should not
+ * depend on a MySQL server. Data does not outlive the JVM.
+ */
+public class InMemoryWeatherStore implements WeatherStore {
+    private final Map<String, List<WeatherRow>> weather = new HashMap<>();
+    private final Map<String, List<PredictionRow>> predictions = new HashMap<>();
+    private final Map<String, TreeMap<Long, Observation>> observations = new HashMap<>();
+
+    @Override
+    public void createTables() {
+        // Nothing to create
+    }
+
+    @Override
+    public synchronized void clearAll() {
+        weather.clear();
+        predictions.clear();
+    }
+
+    @Override
+    public synchronized void clearCity(String city) {
+        weather.remove(key(city));
+        predictions.remove(key(city));
+    }
+
+    @Override
+    public synchronized void store(List<WeatherRow> weatherRows, List<PredictionRow> predictionRows) {
+        // Like the unique keys of the MySQL tables, a row for a stored city and date replaces it
+        for (WeatherRow row : weatherRows) {
+            List<WeatherRow> rows = weather.computeIfAbsent(key(row.city()), k -> new ArrayList<>());
+            rows.removeIf(stored -> stored.date().equals(row.date()));
+            rows.add(row);
+        }
+        for (PredictionRow row : predictionRows) {
+            List<PredictionRow> rows = predictions.computeIfAbsent(key(row.city()), k -> new ArrayList<>());
+            if (row.targetDate() != null) {
+                rows.removeIf(stored -> row.targetDate().equals(stored.targetDate()));
+            }
+            rows.add(row);
+        }
+    }
+
+    @Override
+    public synchronized void upsertObservations(String city, List<Observation> rows) {
+        TreeMap<Long, Observation> days = observations.computeIfAbsent(key(city), k -> new TreeMap<>());
+        for (Observation row : rows) {
+            days.put(row.epochDay(), row);
+        }
+    }
+
+    @Override
+    public synchronized OptionalDouble readPrediction(String city) {
+        List<PredictionRow> rows = predictions.getOrDefault(key(city), List.of());
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (rows.get(i).horizon() == 1) {
+                return OptionalDouble.of(rows.get(i).preds());
+            }
+        }
+        return OptionalDouble.empty();
+    }
+
+    @Override
+    public synchronized List<PredictionRow> readForecast(String city) {
+        // Later rows replace earlier ones for the same date
+        TreeMap<LocalDate, PredictionRow> latest = new TreeMap<>();
+        LocalDate today = LocalDate.now();
+        for (PredictionRow row : predictions.getOrDefault(key(city), List.of())) {
+            if (row.targetDate() != null && !row.targetDate().isBefore(today)) {
+                latest.put(row.targetDate(), row);
+            }
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * Returns a copy of the weather rows stored for the city, oldest first.
+     */
+    public synchronized List<WeatherRow> weatherRows(String city) {
+        List<WeatherRow> rows = weather.get(key(city));
+        return rows == null ? List.of() : List.copyOf(rows);
+    }
+
+    /**
+     * Returns the observations stored for the city, oldest first.
+     */
+    public synchronized List<Observation> observations(String city) {
+        TreeMap<Long, Observation> days = observations.get(key(city));
+        return days == null ? List.of() : List.copyOf(days.values());
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    private static String key(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,338 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide counters, timers and gauges, published as MXBeans under {@code org.example:type=Metrics}
+ * and as Prometheus text by {@link #scrape()}.
+ *
+ * Recording is a few {@link LongAdder} increments, so it is cheap enough for hot paths. Looking a metric
+ * up by name and labels builds its label text and costs a map lookup; callers keep the returned metric
+ * instead, per label value where the labels vary.
+ * Labels are given as alternating names and values.
+ */
+public final class Metrics {
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+
+    // Sorted by name, then labels, so each family's series are contiguous in the scrape output
+    private static final Map<String, Metric> METRICS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface TimerMXBean {
+        long getCount();
+
+        double getMeanMillis();
+
+        /** Upper bound of the histogram bucket holding the median. */
+        double getP50Millis();
+
+        /** Upper bound of the histogram bucket holding the 99th percentile. */
+        double getP99Millis();
+
+        double getMaxMillis();
+    }
+
+    public interface GaugeMXBean {
+        double getValue();
+    }
+
+    public static Counter counter(String name, String help, String... labels) {
+        return register(name, labels, Counter.class, text -> new Counter(name, help, text));
+    }
+
+    public static Timer timer(String name, String help, String... labels) {
+        return register(name, labels, Timer.class, text -> new Timer(name, help, text));
+    }
+
+    /** Registers a value read at scrape time. Registering the same name and labels again keeps the first. */
+    public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, labels, Gauge.class, text -> new Gauge(name, help, text, value));
+    }
+
+    /**
+     * All metrics in the Prometheus text exposition format, version 0.0.4.
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        String family = null;
+        for (Metric metric : METRICS.values()) {
+            if (!metric.name.equals(family)) {
+                family = metric.name;
+                out.append("# HELP ").append(family).append(' ').append(metric.help).append('\n');
+                out.append("# TYPE ").append(family).append(' ').append(metric.type()).append('\n');
+            }
+            metric.write(out);
+        }
+        return out.toString();
+    }
+
+    // Looks the metric up first so that repeated calls only build its id, never a new metric
+    private static <M extends Metric> M register(String name, String[] labels, Class<M> type,
+                                                 Function<String, M> factory) {
+        String text = labelText(labels);
+        String id = Metric.id(name, text);
+        Metric existing = METRICS.get(id);
+        if (existing == null) {
+            M candidate = factory.apply(text);
+            existing = METRICS.putIfAbsent(id, candidate);
+            if (existing == null) {
+                registerMBean(name, labels, candidate);
+                return candidate;
+            }
+        }
+        if (existing.getClass() != type) {
+            throw new IllegalArgumentException(name + " is already registered as a " + existing.type());
+        }
+        return type.cast(existing);
+    }
+
+    private static void registerMBean(String name, String[] labels, Metric metric) {
+        StringBuilder objectName = new StringBuilder("org.example:type=Metrics,name=").append(name);
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            objectName.append(',').append(labels[i]).append('=').append(ObjectName.quote(labels[i + 1]));
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metric, new ObjectName(objectName.toString()));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another class loader in the same JVM got there first; the scrape output is still complete
+        } catch (JMException e) {
+            LOGGER.warning("Failed to register MBean " + objectName + ": " + e.getMessage());
+        }
+    }
+
+    private static String labelText(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            text.append(i == 0 ? "" : ",").append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') {
+                    text.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    text.append("\\n");
+                } else {
+                    text.append(ch);
+                }
+            }
+            text.append('"');
+        }
+        return text.toString();
+    }
+
+    private abstract static class Metric {
+        final String name;
+        final String help;
+        final String labels;
+
+        Metric(String name, String help, String labels) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+        }
+
+        static String id(String name, String labels) {
+            return name + '{' + labels + '}';
+        }
+
+        abstract String type();
+
+        abstract void write(StringBuilder out);
+
+        void sample(StringBuilder out, String suffix, String extraLabel, String value) {
+            out.append(name).append(suffix);
+            if (!labels.isEmpty() || extraLabel != null) {
+                out.append('{').append(labels);
+                if (extraLabel != null) {
+                    out.append(labels.isEmpty() ? "" : ",").append(extraLabel);
+                }
+                out.append('}');
+            }
+            out.append(' ').append(value).append('\n');
+        }
+    }
+
+    public static final class Counter extends Metric implements CounterMXBean {
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            sample(out, "", null, Long.toString(count.sum()));
+        }
+    }
+
+    /**
+     * Latency histogram over fixed buckets doubling from 50 microseconds to about 105 seconds.
+     */
+    public static final class Timer extends Metric implements TimerMXBean {
+        private static final long[] BOUNDS_NANOS = new long[22];
+
+        static {
+            for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+                BOUNDS_NANOS[i] = 50_000L << i;
+            }
+        }
+
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        private Timer(String name, String help, String labels) {
+            super(name, help, labels);
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /** Records the time since {@code startNanos}, a value of {@link System#nanoTime()}. */
+        public void stop(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public void record(long nanos) {
+            int bucket = 0;
+            while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : sumNanos.sum() / 1e6 / n;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return quantileMillis(0.5);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return quantileMillis(0.99);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        private double quantileMillis(double q) {
+            long n = count.sum();
+            if (n == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return BOUNDS_NANOS[i] / 1e6;
+                }
+            }
+            return getMaxMillis();
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            long cumulative = 0;
+            for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+                cumulative += buckets[i].sum();
+                sample(out, "_bucket", "le=\"" + seconds(BOUNDS_NANOS[i]) + '"', Long.toString(cumulative));
+            }
+            cumulative += buckets[BOUNDS_NANOS.length].sum();
+            sample(out, "_bucket", "le=\"+Inf\"", Long.toString(cumulative));
+            sample(out, "_sum", null, seconds(sumNanos.sum()));
+            sample(out, "_count", null, Long.toString(count.sum()));
+        }
+
+        private static String seconds(long nanos) {
+            return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+        }
+    }
+
+    private static final class Gauge extends Metric implements GaugeMXBean {
+        private final DoubleSupplier value;
+
+        private Gauge(String name, String help, String labels, DoubleSupplier value) {
+            super(name, help, labels);
+            this.value = value;
+        }
+
+        @Override
+        public double getValue() {
+            return value.getAsDouble();
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            double v = value.getAsDouble();
+            sample(out, "", null, Double.isNaN(v) ? "NaN" : Double.toString(v));
+        }
+    }
+}
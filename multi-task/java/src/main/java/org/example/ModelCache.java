@@ -0,0 +1,65 @@
+package org.example;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-city models, loaded or trained on first use. The first caller for a city does the work on its own
+ * thread, outside the map, so loading one city never blocks lookups of another; concurrent callers for
+ * the same city wait for that result. A failed load is forgotten, so the next call tries again.
+ */
+final class ModelCache<M> {
+    private final ConcurrentMap<String, CompletableFuture<M>> models = new ConcurrentHashMap<>();
+
+    M get(String city, Supplier<M> load) {
+        String key = key(city);
+        CompletableFuture<M> model = models.get(key);
+        if (model == null) {
+            CompletableFuture<M> created = new CompletableFuture<>();
+            model = models.putIfAbsent(key, created);
+            if (model == null) {
+                try {
+                    M loaded = load.get();
+                    created.complete(loaded);
+                    return loaded;
+                } catch (RuntimeException | Error e) {
+                    models.remove(key, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return model.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Replaces the city's model, including one still loading; callers already waiting get the old result. */
+    void put(String city, M model) {
+        models.put(key(city), CompletableFuture.completedFuture(model));
+    }
+
+    /** True once the city's model is available without loading. */
+    boolean isReady(String city) {
+        return getIfReady(city) != null;
+    }
+
+    /** The city's model if it is available without loading or waiting, otherwise null. */
+    M getIfReady(String city) {
+        CompletableFuture<M> model = models.get(key(city));
+        return model != null && model.isDone() && !model.isCompletedExceptionally() ? model.join() : null;
+    }
+
+    private static String key(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+}
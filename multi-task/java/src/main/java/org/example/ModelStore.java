@@ -0,0 +1,238 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists trained forests as flat binary files named {@code <city>-<sourceHash>.model}. A file holds
+ * one or more forests trained on the same data, e.g. the temp, max and min forecast models.
+ *
+ * Layout (big-endian): magic, version, city, source hash, forest count, then per forest the feature
+ * count, tree count and per tree the node count followed by the feature, left, right, threshold and
+ * value arrays. Version 1 files have no forest count and hold a single forest.
+ */
+public class ModelStore {
+    private static final Logger LOGGER = Logger.getLogger(ModelStore.class.getName());
+    private static final int MAGIC = 0x57464D44; // "WFMD"
+    private static final int VERSION = 2;
+    private static final String EXTENSION = ".model";
+
+    private final Path directory;
+
+    public ModelStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the (first) stored forest for this city and source hash, or null if none matches.
+     */
+    public RandomForestRegressor load(String city, String sourceHash) {
+        RandomForestRegressor[] forests = loadAll(city, sourceHash);
+        return forests == null ? null : forests[0];
+    }
+
+    /**
+     * Returns every forest stored for this city and source hash, or null if none matches.
+     */
+    public RandomForestRegressor[] loadAll(String city, String sourceHash) {
+        Path file = fileFor(city, sourceHash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        // Read onto the heap rather than mapped: on Windows a live mapping keeps the file from being
+        // replaced or deleted by a later save until the buffer is collected
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until full
+            }
+            buffer.flip();
+            return read(buffer, city, sourceHash);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable model {0}: {1}", new Object[]{file, e.getMessage()});
+            return null;
+        }
+    }
+
+    public void save(String city, String sourceHash, RandomForestRegressor... forests) {
+        try {
+            Files.createDirectories(directory);
+            Path target = fileFor(city, sourceHash);
+            Path temp = Files.createTempFile(directory, key(city), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                write(out, city, sourceHash, forests);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deleteStale(city, target);
+            LOGGER.log(Level.INFO, "Saved model for {0} to {1}", new Object[]{city, target});
+        } catch (IOException e) {
+            // A missing artifact only costs a retrain on next start
+            LOGGER.log(Level.WARNING, "Failed to save model for {0}: {1}", new Object[]{city, e.getMessage()});
+        }
+    }
+
+    /**
+     * Hashes a training file so models are invalidated when its content changes.
+     */
+    public static String hashOf(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] chunk = new byte[1 << 16];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                digest.update(chunk, 0, read);
+            }
+            byte[] hash = digest.digest();
+            StringBuilder hex = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to hash " + file, e);
+        }
+    }
+
+    private static void write(DataOutputStream out, String city, String sourceHash,
+                              RandomForestRegressor[] forests) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, key(city));
+        writeString(out, sourceHash);
+        out.writeInt(forests.length);
+        for (RandomForestRegressor forest : forests) {
+            writeForest(out, forest);
+        }
+    }
+
+    private static void writeForest(DataOutputStream out, RandomForestRegressor forest) throws IOException {
+        RegressionTree[] trees = forest.getTrees();
+        out.writeInt(forest.getNumFeatures());
+        out.writeInt(trees.length);
+        for (RegressionTree tree : trees) {
+            int n = tree.nodeCount();
+            out.writeInt(n);
+            int[] feature = tree.features();
+            int[] left = tree.leftChildren();
+            int[] right = tree.rightChildren();
+            double[] threshold = tree.thresholds();
+            double[] value = tree.values();
+            for (int i = 0; i < n; i++) out.writeInt(feature[i]);
+            for (int i = 0; i < n; i++) out.writeInt(left[i]);
+            for (int i = 0; i < n; i++) out.writeInt(right[i]);
+            for (int i = 0; i < n; i++) out.writeDouble(threshold[i]);
+            for (int i = 0; i < n; i++) out.writeDouble(value[i]);
+        }
+    }
+
+    private static RandomForestRegressor[] read(ByteBuffer buffer, String city, String sourceHash) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("Not a model file");
+        }
+        int version = buffer.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new IllegalStateException("Unsupported model version " + version);
+        }
+        if (!key(city).equals(readString(buffer)) || !sourceHash.equals(readString(buffer))) {
+            throw new IllegalStateException("Model header does not match " + city + "/" + sourceHash);
+        }
+        RandomForestRegressor[] forests = new RandomForestRegressor[version == 1 ? 1 : buffer.getInt()];
+        for (int f = 0; f < forests.length; f++) {
+            forests[f] = readForest(buffer);
+        }
+        return forests;
+    }
+
+    private static RandomForestRegressor readForest(ByteBuffer buffer) {
+        int numFeatures = buffer.getInt();
+        RegressionTree[] trees = new RegressionTree[buffer.getInt()];
+        for (int t = 0; t < trees.length; t++) {
+            int n = buffer.getInt();
+            int[] feature = readInts(buffer, n);
+            int[] left = readInts(buffer, n);
+            int[] right = readInts(buffer, n);
+            double[] threshold = readDoubles(buffer, n);
+            double[] value = readDoubles(buffer, n);
+            trees[t] = new RegressionTree(feature, threshold, left, right, value);
+        }
+        return new RandomForestRegressor(trees, numFeatures);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int n) {
+        int[] values = new int[n];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int n) {
+        double[] values = new double[n];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + n * Double.BYTES);
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // The glob on the city prefix also matches other cities that extend it ("new-delhi-..." when saving
+    // "new"), so a file is only deleted if its header names this city
+    private void deleteStale(String city, Path keep) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, key(city) + "-*" + EXTENSION)) {
+            for (Path file : files) {
+                if (!file.equals(keep) && key(city).equals(cityOf(file))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // The city key from a model file's header, or null if it is not a readable model file
+    private static String cityOf(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            in.readInt(); // version; every version starts with the city
+            byte[] bytes = new byte[in.readShort()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Path fileFor(String city, String sourceHash) {
+        return directory.resolve(key(city) + "-" + sourceHash + EXTENSION);
+    }
+
+    private static String key(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+}
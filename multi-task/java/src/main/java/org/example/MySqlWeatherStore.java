@@ -0,0 +1,406 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MySQL persistence for weather_data and predictions backed by a HikariCP pool.
+ *
+ * Each caller borrows its own connection, so GUI workers and prediction threads no longer share one.
+ * The driver caches server-side prepared statements per connection and rewrites JDBC batches into
+ * multi-row inserts.
+ */
+public class MySqlWeatherStore implements WeatherStore {
+    private static final Logger LOGGER = Logger.getLogger(MySqlWeatherStore.class.getName());
+
+    // One row per city and date; a refresh or a new prediction replaces the earlier one
+    private static final String UPSERT_WEATHER =
+        "INSERT INTO weather_data (city, temperature, humidity, wind_speed, date) VALUES (?, ?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE temperature = VALUES(temperature), humidity = VALUES(humidity),"
+            + " wind_speed = VALUES(wind_speed), created_at = CURRENT_TIMESTAMP";
+    private static final String UPSERT_PREDICTION =
+        "INSERT INTO predictions (city, preds, preds_max, preds_min, target_date, horizon) VALUES (?, ?, ?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE preds = VALUES(preds), preds_max = VALUES(preds_max),"
+            + " preds_min = VALUES(preds_min), horizon = VALUES(horizon), created_at = CURRENT_TIMESTAMP";
+    // Rows written before the forecast columns existed have no horizon and were next-day predictions
+    private static final String SELECT_PREDICTION =
+        "SELECT preds FROM predictions WHERE city = ? AND (horizon = 1 OR horizon IS NULL)"
+            + " ORDER BY created_at DESC, id DESC LIMIT 1";
+    private static final String SELECT_FORECAST =
+        "SELECT p.preds, p.preds_max, p.preds_min, p.target_date, p.horizon FROM predictions p"
+            + " JOIN (SELECT target_date, MAX(id) AS id FROM predictions"
+            + "       WHERE city = ? AND target_date >= CURRENT_DATE GROUP BY target_date) latest"
+            + " ON p.id = latest.id ORDER BY p.target_date";
+
+    private static final String UPSERT_OBSERVATIONS = upsertObservationsSql();
+
+    private static final Metrics.Timer STORE_LATENCY = statementTimer("store");
+    private static final Metrics.Timer UPSERT_LATENCY = statementTimer("upsert_observations");
+    private static final Metrics.Timer CLEAR_LATENCY = statementTimer("clear_city");
+    private static final Metrics.Timer PREDICTION_LATENCY = statementTimer("read_prediction");
+    private static final Metrics.Timer FORECAST_LATENCY = statementTimer("read_forecast");
+
+    private final HikariDataSource dataSource;
+
+    /**
+     * Uses an already configured pool, for example one on an embedded database in MySQL mode.
+     */
+    MySqlWeatherStore(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public MySqlWeatherStore(String host, String database, String user, String password) {
+        try {
+            LOGGER.info("Initializing database connection pool...");
+            try (Connection tempConnection = DriverManager.getConnection("jdbc:mysql://" + host, user, password);
+                 Statement stmt = tempConnection.createStatement()) {
+                stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + database);
+                LOGGER.log(Level.INFO, "Database created or verified: {0}", database);
+            }
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("weather-db");
+            config.setJdbcUrl("jdbc:mysql://" + host + "/" + database
+                + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC");
+            config.setUsername(user);
+            config.setPassword(password);
+            config.setMaximumPoolSize(8);
+            config.setMinimumIdle(1);
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", "250");
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            config.addDataSourceProperty("rewriteBatchedStatements", "true");
+            this.dataSource = new HikariDataSource(config);
+
+            LOGGER.log(Level.INFO, "Successfully connected to database: {0}", database);
+        } catch (SQLException | RuntimeException e) {
+            String errorMsg = "Critical database initialization error: " + e.getMessage();
+            LOGGER.severe(errorMsg);
+            throw new RuntimeException(errorMsg, e);
+        }
+    }
+
+    @Override
+    public void createTables() {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            LOGGER.info("Checking and creating necessary tables...");
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS weather_data (" +
+                "    id INT AUTO_INCREMENT PRIMARY KEY," +
+                "    city VARCHAR(50) NOT NULL," +
+                "    temperature DOUBLE NOT NULL," +
+                "    humidity DOUBLE NOT NULL," +
+                "    wind_speed DOUBLE NOT NULL," +
+                "    date DATE NOT NULL," +
+                "    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "    UNIQUE KEY uq_city_date (city, date)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS predictions (" +
+                "    id INT AUTO_INCREMENT PRIMARY KEY," +
+                "    city VARCHAR(50) NOT NULL," +
+                "    preds DOUBLE NOT NULL," +
+                "    preds_max DOUBLE NULL," +
+                "    preds_min DOUBLE NULL," +
+                "    target_date DATE NULL," +
+                "    horizon INT NULL," +
+                "    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "    INDEX idx_city_created (city, created_at)," +
+                "    UNIQUE KEY uq_city_target (city, target_date)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+            addForecastColumns(connection);
+            addUniqueKey(connection, "weather_data", "uq_city_date", "date");
+            addUniqueKey(connection, "predictions", "uq_city_target", "target_date");
+            stmt.executeUpdate(createObservationsSql());
+        } catch (SQLException e) {
+            String errorMsg = "Critical error creating tables: " + e.getMessage();
+            LOGGER.severe(errorMsg);
+            throw new RuntimeException(errorMsg, e);
+        }
+    }
+
+    @Override
+    public void clearAll() {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            LOGGER.info("Clearing all weather data from previous sessions...");
+            stmt.executeUpdate("DELETE FROM weather_data");
+            stmt.executeUpdate("DELETE FROM predictions");
+            LOGGER.info("Successfully cleared all weather data");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error clearing weather data: {0}", e.getMessage());
+            throw new RuntimeException("Failed to clear weather data", e);
+        }
+    }
+
+    @Override
+    public void clearCity(String city) {
+        LOGGER.log(Level.INFO, "Clearing data for city: {0}", city);
+        inTransaction("clear_city", CLEAR_LATENCY, () -> "clear data for " + city, connection -> {
+            try (PreparedStatement weather = connection.prepareStatement("DELETE FROM weather_data WHERE city = ?");
+                 PreparedStatement predictions = connection.prepareStatement("DELETE FROM predictions WHERE city = ?")) {
+                weather.setString(1, city);
+                weather.executeUpdate();
+                predictions.setString(1, city);
+                predictions.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Writes all rows for any number of cities as two batched upserts in a single transaction. A row for a
+     * city and date already stored replaces it.
+     */
+    @Override
+    public void store(List<WeatherRow> weatherRows, List<PredictionRow> predictionRows) {
+        if (weatherRows.isEmpty() && predictionRows.isEmpty()) {
+            return;
+        }
+        inTransaction("store", STORE_LATENCY,
+            () -> "store " + weatherRows.size() + " weather and " + predictionRows.size() + " prediction rows",
+            connection -> {
+                if (!weatherRows.isEmpty()) {
+                    try (PreparedStatement stmt = connection.prepareStatement(UPSERT_WEATHER)) {
+                        for (WeatherRow row : weatherRows) {
+                            stmt.setString(1, row.city());
+                            stmt.setDouble(2, row.temperature());
+                            stmt.setDouble(3, row.humidity());
+                            stmt.setDouble(4, row.windSpeed());
+                            stmt.setDate(5, Date.valueOf(row.date()));
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                if (!predictionRows.isEmpty()) {
+                    try (PreparedStatement stmt = connection.prepareStatement(UPSERT_PREDICTION)) {
+                        for (PredictionRow row : predictionRows) {
+                            stmt.setString(1, row.city());
+                            stmt.setDouble(2, row.preds());
+                            setNullableDouble(stmt, 3, row.predsMax());
+                            setNullableDouble(stmt, 4, row.predsMin());
+                            if (row.targetDate() != null) {
+                                stmt.setDate(5, Date.valueOf(row.targetDate()));
+                            } else {
+                                stmt.setNull(5, Types.DATE);
+                            }
+                            stmt.setInt(6, row.horizon());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+            });
+    }
+
+    /**
+     * Writes the rows as one batched INSERT ... ON DUPLICATE KEY UPDATE in a single transaction. The driver
+     * sends the batch as multi-row statements, so a backfill costs a few round trips and one commit per call.
+     */
+    @Override
+    public void upsertObservations(String city, List<Observation> observations) {
+        if (observations.isEmpty()) {
+            return;
+        }
+        inTransaction("upsert_observations", UPSERT_LATENCY,
+            () -> "upsert " + observations.size() + " observations for " + city, connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(UPSERT_OBSERVATIONS)) {
+                    for (Observation row : observations) {
+                        stmt.setString(1, city);
+                        stmt.setDate(2, Date.valueOf(row.date()));
+                        int index = 3;
+                        for (ObservationField field : ObservationField.values()) {
+                            setNullableDouble(stmt, index++, row.get(field));
+                        }
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            });
+    }
+
+    @Override
+    public OptionalDouble readPrediction(String city) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_PREDICTION)) {
+            stmt.setString(1, city);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? OptionalDouble.of(rs.getDouble(1)) : OptionalDouble.empty();
+            }
+        } catch (SQLException e) {
+            statementFailed("read_prediction");
+            LOGGER.severe(() -> Trace.tag("Error retrieving prediction for " + city + ": " + e.getMessage()));
+            throw new RuntimeException("Failed to retrieve prediction", e);
+        } finally {
+            PREDICTION_LATENCY.stop(start);
+        }
+    }
+
+    @Override
+    public List<PredictionRow> readForecast(String city) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_FORECAST)) {
+            stmt.setString(1, city);
+            List<PredictionRow> rows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new PredictionRow(city, rs.getDouble(1), nullableDouble(rs, 2), nullableDouble(rs, 3),
+                        rs.getDate(4).toLocalDate(), rs.getInt(5)));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            statementFailed("read_forecast");
+            LOGGER.severe(() -> Trace.tag("Error retrieving forecast for " + city + ": " + e.getMessage()));
+            throw new RuntimeException("Failed to retrieve forecast", e);
+        } finally {
+            FORECAST_LATENCY.stop(start);
+        }
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    // Tables created before the forecast horizon existed get the new columns added in place
+    private static void addForecastColumns(Connection connection) throws SQLException {
+        // Driver metadata rather than information_schema, whose schema naming differs between databases
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, "predictions", "target_date")) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        LOGGER.info("Adding forecast columns to predictions table...");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(
+                "ALTER TABLE predictions" +
+                "    ADD COLUMN preds_max DOUBLE NULL AFTER preds," +
+                "    ADD COLUMN preds_min DOUBLE NULL AFTER preds_max," +
+                "    ADD COLUMN target_date DATE NULL AFTER preds_min," +
+                "    ADD COLUMN horizon INT NULL AFTER target_date");
+        }
+    }
+
+    // Tables created when every write was a plain insert keep only the latest row per city and date, then
+    // get the key the upserts rely on
+    private static void addUniqueKey(Connection connection, String table, String key, String dateColumn)
+            throws SQLException {
+        // Matched by columns, since some databases name the index behind a key differently
+        Map<String, List<String>> uniqueIndexes = new HashMap<>();
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+            while (rs.next()) {
+                uniqueIndexes.computeIfAbsent(rs.getString("INDEX_NAME"), name -> new ArrayList<>())
+                    .add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        if (uniqueIndexes.containsValue(List.of("city", dateColumn))) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Removing duplicate rows and adding unique key to {0} table...", table);
+        try (Statement stmt = connection.createStatement()) {
+            // The extra derived table lets MySQL delete from the table the subquery reads
+            int removed = stmt.executeUpdate(
+                "DELETE FROM " + table + " WHERE " + dateColumn + " IS NOT NULL AND id NOT IN (" +
+                "    SELECT id FROM (SELECT MAX(id) AS id FROM " + table +
+                "        GROUP BY city, " + dateColumn + ") latest)");
+            stmt.executeUpdate("ALTER TABLE " + table + " ADD UNIQUE KEY " + key + " (city, " + dateColumn + ")");
+            LOGGER.log(Level.INFO, "Removed {0} duplicate rows from {1}", new Object[]{removed, table});
+        }
+    }
+
+    private static String createObservationsSql() {
+        StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS observations (")
+            .append("    city VARCHAR(50) NOT NULL,")
+            .append("    date DATE NOT NULL,");
+        for (ObservationField field : ObservationField.values()) {
+            sql.append("    ").append(field.csvName()).append(" DOUBLE NULL,");
+        }
+        return sql.append("    PRIMARY KEY (city, date)")
+            .append(") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4").toString();
+    }
+
+    private static String upsertObservationsSql() {
+        StringBuilder sql = new StringBuilder("INSERT INTO observations (city, date");
+        StringBuilder placeholders = new StringBuilder("?, ?");
+        StringBuilder updates = new StringBuilder();
+        for (ObservationField field : ObservationField.values()) {
+            sql.append(", ").append(field.csvName());
+            placeholders.append(", ?");
+            updates.append(updates.length() == 0 ? "" : ", ")
+                .append(field.csvName()).append(" = VALUES(").append(field.csvName()).append(')');
+        }
+        return sql.append(") VALUES (").append(placeholders).append(") ON DUPLICATE KEY UPDATE ")
+            .append(updates).toString();
+    }
+
+    private static void setNullableDouble(PreparedStatement stmt, int index, double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            stmt.setNull(index, Types.DOUBLE);
+        } else {
+            stmt.setDouble(index, value);
+        }
+    }
+
+    private static double nullableDouble(ResultSet rs, int index) throws SQLException {
+        double value = rs.getDouble(index);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+
+    private interface SqlWork {
+        void run(Connection connection) throws SQLException;
+    }
+
+    // The description is only built if the work fails
+    private void inTransaction(String op, Metrics.Timer latency, Supplier<String> description, SqlWork work) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                work.run(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            statementFailed(op);
+            String failed = "Failed to " + description.get();
+            LOGGER.severe(Trace.tag(failed + ": " + e.getMessage()));
+            throw new RuntimeException(failed, e);
+        } finally {
+            latency.stop(start);
+        }
+    }
+
+    private static Metrics.Timer statementTimer(String op) {
+        return Metrics.timer("db_statement_seconds", "Database call latency including the pool checkout", "op", op);
+    }
+
+    private static void statementFailed(String op) {
+        Metrics.counter("db_errors_total", "Failed database calls", "op", op).increment();
+    }
+}
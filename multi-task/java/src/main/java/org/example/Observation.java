@@ -0,0 +1,48 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * One day of measurements for a city. Values are indexed by {@link ObservationField#ordinal()}
+ * and are NaN when not observed.
+ */
+public final class Observation {
+    private final long epochDay;
+    private final double[] values;
+
+    public Observation(LocalDate date, double[] values) {
+        this(date.toEpochDay(), values);
+    }
+
+    Observation(long epochDay, double[] values) {
+        if (values.length != ObservationField.count()) {
+            throw new IllegalArgumentException("Expected " + ObservationField.count() + " values, got " + values.length);
+        }
+        this.epochDay = epochDay;
+        this.values = values.clone();
+    }
+
+    /** Starts an observation with every field missing. */
+    public static double[] emptyValues() {
+        double[] values = new double[ObservationField.count()];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    public LocalDate date() {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    public long epochDay() {
+        return epochDay;
+    }
+
+    public double get(ObservationField field) {
+        return values[field.ordinal()];
+    }
+
+    double[] values() {
+        return values;
+    }
+}
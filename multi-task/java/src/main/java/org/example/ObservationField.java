@@ -0,0 +1,38 @@
+package org.example;
+
+/**
+ * Daily measurements kept in the observation store, named after their Visual Crossing CSV columns.
+ */
+public enum ObservationField {
+    TEMP("temp"),
+    TEMP_MAX("tempmax"),
+    TEMP_MIN("tempmin"),
+    HUMIDITY("humidity"),
+    WIND_SPEED("windspeed"),
+    WIND_DIR("winddir"),
+    DEW("dew"),
+    SEA_LEVEL_PRESSURE("sealevelpressure"),
+    CLOUD_COVER("cloudcover"),
+    SOLAR_RADIATION("solarradiation"),
+    PRECIP("precip");
+
+    private static final ObservationField[] VALUES = values();
+
+    private final String csvName;
+
+    ObservationField(String csvName) {
+        this.csvName = csvName;
+    }
+
+    public String csvName() {
+        return csvName;
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    static ObservationField at(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
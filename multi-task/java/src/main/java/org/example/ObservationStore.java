@@ -0,0 +1,456 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Time-partitioned daily history keyed by (city, date).
+ *
+ * New days land in a hot partition that is journaled to an append-only log. Once a newer month has
+ * been observed, older months are compacted into immutable per-month column segments (sorted days plus
+ * one double[] per field), so range scans read contiguous primitive arrays. Upserting a day replaces
+ * any earlier value for it, wherever it lives.
+ */
+public class ObservationStore {
+    private static final Logger LOGGER = Logger.getLogger(ObservationStore.class.getName());
+    private static final int SEGMENT_MAGIC = 0x57464F53; // "WFOS"
+    private static final int SEGMENT_VERSION = 1;
+    private static final String HOT_LOG = "hot.log";
+    private static final String SEGMENT_EXTENSION = ".seg";
+
+    /** Days and field columns returned by a scan, in ascending date order. */
+    public record Range(long[] days, double[][] columns) {
+        public int size() {
+            return days.length;
+        }
+
+        public double[] column(ObservationField field) {
+            return columns[field.ordinal()];
+        }
+    }
+
+    private record Segment(YearMonth month, long[] days, double[][] columns) {
+    }
+
+    private final Path directory;
+    private final ConcurrentMap<String, CityHistory> cities = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory where segments and hot logs are kept, or null for an in-memory store
+     */
+    public ObservationStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public void upsert(String city, Observation observation) {
+        upsertAll(city, List.of(observation));
+    }
+
+    public void upsertAll(String city, Collection<Observation> observations) {
+        if (!observations.isEmpty()) {
+            history(city).upsert(observations);
+        }
+    }
+
+    /**
+     * Returns every stored day in [from, to], both inclusive.
+     */
+    public Range scan(String city, LocalDate from, LocalDate to) {
+        return history(city).scan(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Returns the days strictly after {@code after}, for models that train on new observations only.
+     */
+    public Range since(String city, LocalDate after) {
+        return history(city).scan(after.toEpochDay() + 1, Long.MAX_VALUE);
+    }
+
+    public Optional<LocalDate> lastDate(String city) {
+        long last = history(city).lastDay();
+        return last == Long.MIN_VALUE ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(last));
+    }
+
+    private CityHistory history(String city) {
+        return cities.computeIfAbsent(city.toLowerCase(Locale.ROOT), CityHistory::new);
+    }
+
+    private final class CityHistory {
+        private final Path cityDir;
+        private final TreeMap<Long, double[]> hot = new TreeMap<>();
+        private final TreeMap<YearMonth, Segment> segments = new TreeMap<>();
+
+        CityHistory(String key) {
+            this.cityDir = directory == null ? null : directory.resolve(key);
+            if (cityDir != null) {
+                load();
+            }
+        }
+
+        synchronized void upsert(Collection<Observation> observations) {
+            Map<YearMonth, List<Observation>> segmentUpdates = new TreeMap<>();
+            List<Observation> hotUpdates = new ArrayList<>();
+            for (Observation observation : observations) {
+                YearMonth month = monthOf(observation.epochDay());
+                if (segments.containsKey(month)) {
+                    segmentUpdates.computeIfAbsent(month, m -> new ArrayList<>()).add(observation);
+                } else {
+                    hot.put(observation.epochDay(), observation.values().clone());
+                    hotUpdates.add(observation);
+                }
+            }
+
+            segmentUpdates.forEach((month, updates) -> {
+                TreeMap<Long, double[]> rows = rowsOf(segments.get(month));
+                for (Observation observation : updates) {
+                    rows.put(observation.epochDay(), observation.values().clone());
+                }
+                writeSegment(toSegment(month, rows));
+            });
+            appendToHotLog(hotUpdates);
+            compactOldMonths();
+        }
+
+        synchronized Range scan(long from, long to) {
+            List<long[]> dayChunks = new ArrayList<>();
+            List<double[][]> columnChunks = new ArrayList<>();
+            int total = 0;
+
+            if (from > to) {
+                return new Range(new long[0], new double[ObservationField.count()][0]);
+            }
+            if (!segments.isEmpty()) {
+                YearMonth first = from == Long.MIN_VALUE ? segments.firstKey() : monthOf(from);
+                YearMonth last = to == Long.MAX_VALUE ? segments.lastKey() : monthOf(to);
+                if (first.isAfter(last)) {
+                    last = first; // subMap needs ordered bounds; the day filter below keeps this empty
+                }
+                for (Segment segment : segments.subMap(first, true, last, true).values()) {
+                    int start = lowerBound(segment.days(), from);
+                    int end = lowerBound(segment.days(), to == Long.MAX_VALUE ? to : to + 1);
+                    if (end > start) {
+                        dayChunks.add(Arrays.copyOfRange(segment.days(), start, end));
+                        double[][] slice = new double[ObservationField.count()][];
+                        for (int f = 0; f < slice.length; f++) {
+                            slice[f] = Arrays.copyOfRange(segment.columns()[f], start, end);
+                        }
+                        columnChunks.add(slice);
+                        total += end - start;
+                    }
+                }
+            }
+
+            Map<Long, double[]> hotRange = hot.subMap(from, true, to, true);
+            long[] days = new long[total + hotRange.size()];
+            double[][] columns = new double[ObservationField.count()][days.length];
+            int offset = 0;
+            for (int c = 0; c < dayChunks.size(); c++) {
+                long[] chunk = dayChunks.get(c);
+                System.arraycopy(chunk, 0, days, offset, chunk.length);
+                for (int f = 0; f < columns.length; f++) {
+                    System.arraycopy(columnChunks.get(c)[f], 0, columns[f], offset, chunk.length);
+                }
+                offset += chunk.length;
+            }
+            for (Map.Entry<Long, double[]> entry : hotRange.entrySet()) {
+                days[offset] = entry.getKey();
+                for (int f = 0; f < columns.length; f++) {
+                    columns[f][offset] = entry.getValue()[f];
+                }
+                offset++;
+            }
+            return sorted(new Range(days, columns));
+        }
+
+        synchronized long lastDay() {
+            long last = hot.isEmpty() ? Long.MIN_VALUE : hot.lastKey();
+            if (!segments.isEmpty()) {
+                long[] days = segments.lastEntry().getValue().days();
+                last = Math.max(last, days[days.length - 1]);
+            }
+            return last;
+        }
+
+        // Moves every hot month older than the newest observed month into a column segment
+        private void compactOldMonths() {
+            if (hot.isEmpty()) {
+                return;
+            }
+            YearMonth newest = monthOf(lastDay());
+            TreeMap<YearMonth, TreeMap<Long, double[]>> byMonth = new TreeMap<>();
+            for (Map.Entry<Long, double[]> entry : hot.entrySet()) {
+                YearMonth month = monthOf(entry.getKey());
+                if (month.isBefore(newest)) {
+                    byMonth.computeIfAbsent(month, m -> new TreeMap<>()).put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (byMonth.isEmpty()) {
+                return;
+            }
+            byMonth.forEach((month, rows) -> {
+                TreeMap<Long, double[]> merged = rowsOf(segments.get(month));
+                merged.putAll(rows);
+                writeSegment(toSegment(month, merged));
+                rows.keySet().forEach(hot::remove);
+            });
+            rewriteHotLog();
+            LOGGER.fine(() -> "Compacted " + byMonth.size() + " month(s) into segments for " + cityDir);
+        }
+
+        private TreeMap<Long, double[]> rowsOf(Segment segment) {
+            TreeMap<Long, double[]> rows = new TreeMap<>();
+            if (segment != null) {
+                for (int i = 0; i < segment.days().length; i++) {
+                    double[] values = new double[ObservationField.count()];
+                    for (int f = 0; f < values.length; f++) {
+                        values[f] = segment.columns()[f][i];
+                    }
+                    rows.put(segment.days()[i], values);
+                }
+            }
+            return rows;
+        }
+
+        private Segment toSegment(YearMonth month, TreeMap<Long, double[]> rows) {
+            long[] days = new long[rows.size()];
+            double[][] columns = new double[ObservationField.count()][rows.size()];
+            int i = 0;
+            for (Map.Entry<Long, double[]> entry : rows.entrySet()) {
+                days[i] = entry.getKey();
+                for (int f = 0; f < columns.length; f++) {
+                    columns[f][i] = entry.getValue()[f];
+                }
+                i++;
+            }
+            return new Segment(month, days, columns);
+        }
+
+        private void writeSegment(Segment segment) {
+            segments.put(segment.month(), segment);
+            if (cityDir == null) {
+                return;
+            }
+            try {
+                Files.createDirectories(cityDir);
+                Path temp = Files.createTempFile(cityDir, "segment", ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(SEGMENT_MAGIC);
+                    out.writeInt(SEGMENT_VERSION);
+                    out.writeInt(ObservationField.count());
+                    out.writeInt(segment.days().length);
+                    for (long day : segment.days()) {
+                        out.writeLong(day);
+                    }
+                    for (double[] column : segment.columns()) {
+                        for (double value : column) {
+                            out.writeDouble(value);
+                        }
+                    }
+                }
+                Files.move(temp, cityDir.resolve(segment.month() + SEGMENT_EXTENSION),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write segment " + segment.month() + " in " + cityDir, e);
+            }
+        }
+
+        private void appendToHotLog(List<Observation> observations) {
+            if (cityDir == null || observations.isEmpty()) {
+                return;
+            }
+            try {
+                Files.createDirectories(cityDir);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                        cityDir.resolve(HOT_LOG), StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                    for (Observation observation : observations) {
+                        writeLogRecord(out, observation.epochDay(), observation.values());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to hot log in " + cityDir, e);
+            }
+        }
+
+        private void rewriteHotLog() {
+            if (cityDir == null) {
+                return;
+            }
+            try {
+                Path temp = Files.createTempFile(cityDir, "hot", ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    for (Map.Entry<Long, double[]> entry : hot.entrySet()) {
+                        writeLogRecord(out, entry.getKey(), entry.getValue());
+                    }
+                }
+                Files.move(temp, cityDir.resolve(HOT_LOG), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to rewrite hot log in " + cityDir, e);
+            }
+        }
+
+        private void load() {
+            if (!Files.isDirectory(cityDir)) {
+                return;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(cityDir, "*" + SEGMENT_EXTENSION)) {
+                for (Path file : files) {
+                    Segment segment = readSegment(file);
+                    segments.put(segment.month(), segment);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load segments from " + cityDir, e);
+            }
+
+            Path log = cityDir.resolve(HOT_LOG);
+            if (Files.isRegularFile(log)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+                    while (true) {
+                        long day;
+                        try {
+                            day = in.readLong();
+                        } catch (EOFException end) {
+                            break;
+                        }
+                        int count = in.readInt();
+                        double[] values = Observation.emptyValues();
+                        for (int f = 0; f < count; f++) {
+                            double value = in.readDouble();
+                            if (f < values.length) {
+                                values[f] = value;
+                            }
+                        }
+                        hot.put(day, values); // later records win
+                    }
+                } catch (EOFException truncated) {
+                    LOGGER.log(Level.WARNING, "Ignoring truncated record at the end of {0}", log);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to replay " + log, e);
+                }
+            }
+            dropCompactedFromHot();
+        }
+
+        // A crash between writing a compacted segment and rewriting the hot log leaves that month's days in
+        // both; the segment holds the same or later values, so it keeps them and the log is rewritten
+        private void dropCompactedFromHot() {
+            TreeMap<YearMonth, TreeMap<Long, double[]>> leftovers = new TreeMap<>();
+            for (Map.Entry<Long, double[]> entry : hot.entrySet()) {
+                YearMonth month = monthOf(entry.getKey());
+                if (segments.containsKey(month)) {
+                    leftovers.computeIfAbsent(month, m -> new TreeMap<>()).put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (leftovers.isEmpty()) {
+                return;
+            }
+            leftovers.forEach((month, rows) -> {
+                TreeMap<Long, double[]> merged = rowsOf(segments.get(month));
+                int before = merged.size();
+                rows.forEach(merged::putIfAbsent);
+                if (merged.size() != before) {
+                    writeSegment(toSegment(month, merged));
+                }
+                rows.keySet().forEach(hot::remove);
+            });
+            rewriteHotLog();
+            LOGGER.log(Level.WARNING, "Removed days already compacted into segments from the hot log in {0}", cityDir);
+        }
+
+        private Segment readSegment(Path file) throws IOException {
+            String name = file.getFileName().toString();
+            YearMonth month = YearMonth.parse(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != SEGMENT_MAGIC || in.readInt() != SEGMENT_VERSION) {
+                    throw new IOException("Not an observation segment: " + file);
+                }
+                int fields = in.readInt();
+                int rows = in.readInt();
+                long[] days = new long[rows];
+                for (int i = 0; i < rows; i++) {
+                    days[i] = in.readLong();
+                }
+                double[][] columns = new double[ObservationField.count()][rows];
+                for (int f = 0; f < fields; f++) {
+                    for (int i = 0; i < rows; i++) {
+                        double value = in.readDouble();
+                        if (f < columns.length) {
+                            columns[f][i] = value;
+                        }
+                    }
+                }
+                // Fields added after the segment was written are missing
+                for (int f = fields; f < columns.length; f++) {
+                    Arrays.fill(columns[f], Double.NaN);
+                }
+                return new Segment(month, days, columns);
+            }
+        }
+    }
+
+    private static void writeLogRecord(DataOutputStream out, long day, double[] values) throws IOException {
+        out.writeLong(day);
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static YearMonth monthOf(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return YearMonth.of(date.getYear(), date.getMonth());
+    }
+
+    private static int lowerBound(long[] days, long day) {
+        int index = Arrays.binarySearch(days, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static Range sorted(Range range) {
+        long[] days = range.days();
+        boolean ordered = true;
+        for (int i = 1; i < days.length && ordered; i++) {
+            ordered = days[i - 1] < days[i];
+        }
+        if (ordered) {
+            return range;
+        }
+        Integer[] order = new Integer[days.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(days[a], days[b]));
+        long[] sortedDays = new long[days.length];
+        double[][] sortedColumns = new double[range.columns().length][days.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedDays[i] = days[order[i]];
+            for (int f = 0; f < sortedColumns.length; f++) {
+                sortedColumns[f][i] = range.columns()[f][order[i]];
+            }
+        }
+        return new Range(sortedDays, sortedColumns);
+    }
+}
@@ -0,0 +1,175 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.OptionalDouble;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Next-day temperature from an {@link OnlineRegressor} per city, over {@link FeaturePipeline} features of
+ * today plus tomorrow's humidity and wind speed (the RICH set of {@link Backtester}).
+ *
+ * A city's model is built by {@link #prepare} or the first prediction, by streaming its history CSV and
+ * recorded observations through it once. After that, each completed day is learned as the next one is
+ * observed, in O(features), so the model never needs refitting. Per city it holds the feature windows, the
+ * latest day's values and the model's weights and scaling, independent of how much history it has seen.
+ */
+public class OnlinePredictor {
+    private static final Logger LOGGER = Logger.getLogger(OnlinePredictor.class.getName());
+
+    static final int WIDTH = FeaturePipeline.WIDTH + 2;
+    // Predictions from fewer rows are mostly the running mean
+    static final int MIN_ROWS = 60;
+
+    private static final Metrics.Timer PREDICT_LATENCY =
+        Metrics.timer("prediction_seconds", "Model prediction latency", "model", "online");
+    private static final Metrics.Timer UPDATE_DURATION =
+        Metrics.timer("training_seconds", "Model fitting time, excluding loading the history", "model", "online");
+
+    private final Path historyDir;
+    private final ObservationStore observations;
+    private final ModelCache<CityModel> models = new ModelCache<>();
+
+    /** One city's pipeline and model. The latest day stays pending until a later day shows it is complete. */
+    static final class CityModel {
+        private final FeaturePipeline pipeline = new FeaturePipeline();
+        private final OnlineRegressor model = new OnlineRegressor(WIDTH);
+        private final double[] features = new double[WIDTH];
+        private final double[] pending = Observation.emptyValues();
+        private final double[] row = new double[WIDTH];
+        private boolean ready;
+        private long pendingDay = Long.MIN_VALUE;
+
+        /**
+         * Records a day's values. Repeats of the pending day replace its values; an older day is ignored.
+         *
+         * @return false if the day was older than the pending one
+         */
+        synchronized boolean observe(long epochDay, double[] values) {
+            if (epochDay < pendingDay) {
+                return false;
+            }
+            if (epochDay > pendingDay && pendingDay != Long.MIN_VALUE) {
+                commit();
+            }
+            pendingDay = epochDay;
+            System.arraycopy(values, 0, pending, 0, pending.length);
+            return true;
+        }
+
+        // Learns the pending day's temperature from the day before it, then makes it the day before
+        private void commit() {
+            double temp = pending[ObservationField.TEMP.ordinal()];
+            double humidity = pending[ObservationField.HUMIDITY.ordinal()];
+            double windspeed = pending[ObservationField.WIND_SPEED.ordinal()];
+            if (ready && pipeline.lastDay() == pendingDay - 1
+                && !Double.isNaN(temp) && !Double.isNaN(humidity) && !Double.isNaN(windspeed)) {
+                long start = System.nanoTime();
+                features[FeaturePipeline.WIDTH] = humidity;
+                features[FeaturePipeline.WIDTH + 1] = windspeed;
+                model.update(features, temp);
+                UPDATE_DURATION.stop(start);
+            }
+            ready = pipeline.push(pendingDay, pending, features, 0);
+        }
+
+        /** Tomorrow's temperature from the pending day, or empty while the model or its windows warm up. */
+        synchronized OptionalDouble predict(double tomorrowHumidity, double tomorrowWindspeed) {
+            if (pendingDay == Long.MIN_VALUE || model.count() < MIN_ROWS) {
+                return OptionalDouble.empty();
+            }
+            // Run the pending day through a copy so later values for it can still replace it
+            if (!pipeline.copy().push(pendingDay, pending, row, 0)) {
+                return OptionalDouble.empty();
+            }
+            row[FeaturePipeline.WIDTH] = tomorrowHumidity;
+            row[FeaturePipeline.WIDTH + 1] = tomorrowWindspeed;
+            return OptionalDouble.of(model.predict(row));
+        }
+
+        synchronized long rows() {
+            return model.count();
+        }
+    }
+
+    /**
+     * @param observations daily observations recorded after the CSV history, or null to start from the CSV only
+     */
+    public OnlinePredictor(Path historyDir, ObservationStore observations) {
+        this.historyDir = historyDir;
+        this.observations = observations;
+    }
+
+    /**
+     * Feeds a day's observation to the city's model. Call it whenever the day's values change; the day is
+     * learned once a later day arrives. Until the model is built this does nothing, since building it reads
+     * the day from the observation store; it never reads the history itself.
+     */
+    public void observe(String city, LocalDate date, double[] values) {
+        CityModel model = models.getIfReady(city);
+        if (model != null) {
+            model.observe(date.toEpochDay(), values);
+        }
+    }
+
+    /** Builds the city's model now, if it has not been built yet, so that later calls find it ready. */
+    public void prepare(String city) {
+        modelFor(city);
+    }
+
+    /**
+     * Tomorrow's temperature from the latest observed day and tomorrow's forecast humidity and wind speed,
+     * or empty if the city has too little consecutive history yet.
+     */
+    public OptionalDouble predict(String city, double tomorrowHumidity, double tomorrowWindspeed) {
+        CityModel model = modelFor(city);
+        long start = System.nanoTime();
+        OptionalDouble prediction = model.predict(tomorrowHumidity, tomorrowWindspeed);
+        PREDICT_LATENCY.stop(start);
+        return prediction;
+    }
+
+    /** True once the city's model has been built, so {@link #predict} will not read its history. */
+    public boolean isLoaded(String city) {
+        return models.isReady(city);
+    }
+
+    CityModel modelFor(String city) {
+        return models.get(city, () -> load(city));
+    }
+
+    private CityModel load(String city) {
+        long start = System.nanoTime();
+        CityModel model = new CityModel();
+        ColumnTable table = FeaturePipeline.readCsv(TemperaturePredictor.findHistoryFile(historyDir, city));
+        long[] days = table.epochDays("datetime");
+        double[][] fields = FeaturePipeline.fields(table);
+        double[] values = Observation.emptyValues();
+        long lastDay = Long.MIN_VALUE;
+        for (int r = 0; r < table.rows(); r++) {
+            if (days[r] == ColumnarCsvReader.MISSING_DAY) {
+                continue;
+            }
+            for (int f = 0; f < values.length; f++) {
+                values[f] = fields[f] == null ? Double.NaN : fields[f][r];
+            }
+            if (model.observe(days[r], values)) {
+                lastDay = days[r];
+            }
+        }
+        if (observations != null) {
+            LocalDate after = lastDay == Long.MIN_VALUE ? LocalDate.MIN : LocalDate.ofEpochDay(lastDay);
+            ObservationStore.Range range = observations.since(city, after);
+            for (int r = 0; r < range.size(); r++) {
+                for (int f = 0; f < values.length; f++) {
+                    values[f] = range.columns()[f][r];
+                }
+                model.observe(range.days()[r], values);
+            }
+        }
+        LOGGER.log(Level.INFO, "Built online model for {0} from {1,number,#} rows in {2,number,#} ms",
+            new Object[]{city, model.rows(), (System.nanoTime() - start) / 1_000_000});
+        return model;
+    }
+}
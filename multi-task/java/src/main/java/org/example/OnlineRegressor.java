@@ -0,0 +1,108 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Streaming linear regression for when a model has to stay current with one new row a day. Features are
+ * standardized with running means and variances, and the weights take one normalized least-mean-squares
+ * step per row with L2 shrinkage, so {@link #update} and {@link #predict} are both O(features) and the
+ * state is a few arrays of the feature width, however many rows have been seen.
+ */
+public final class OnlineRegressor {
+    public static final double DEFAULT_LEARNING_RATE = 0.2;
+    public static final double DEFAULT_L2 = 1e-4;
+
+    private final double learningRate;
+    private final double l2;
+    private final double[] weights;
+    private final double[] mean;
+    private final double[] m2;
+    private long count;
+    private double targetMean;
+
+    public OnlineRegressor(int width) {
+        this(width, DEFAULT_LEARNING_RATE, DEFAULT_L2);
+    }
+
+    /**
+     * @param learningRate step size of the normalized update, in (0, 2) for stability
+     * @param l2           fraction of each weight removed per update, scaled by the learning rate
+     */
+    public OnlineRegressor(int width, double learningRate, double l2) {
+        if (width < 1 || !(learningRate > 0 && learningRate < 2) || l2 < 0) {
+            throw new IllegalArgumentException("Invalid width " + width + ", learning rate " + learningRate
+                + " or l2 " + l2);
+        }
+        this.learningRate = learningRate;
+        this.l2 = l2;
+        this.weights = new double[width];
+        this.mean = new double[width];
+        this.m2 = new double[width];
+    }
+
+    public int width() {
+        return weights.length;
+    }
+
+    /** Rows learned so far. */
+    public long count() {
+        return count;
+    }
+
+    /** The prediction for a row, or NaN before the first update. */
+    public double predict(double[] row) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double y = targetMean;
+        for (int j = 0; j < weights.length; j++) {
+            y += weights[j] * standardized(j, row[j]);
+        }
+        return y;
+    }
+
+    /**
+     * Learns one row. The row is scored against the current scaling before it is added to it, so an update
+     * is the step a prediction of that row would have been corrected by.
+     */
+    public void update(double[] row, double target) {
+        if (row.length != weights.length) {
+            throw new IllegalArgumentException("Expected " + weights.length + " features, got " + row.length);
+        }
+        double error = target - predict(row);
+        if (count > 0) {
+            double norm = 1.0;
+            for (int j = 0; j < weights.length; j++) {
+                double z = standardized(j, row[j]);
+                norm += z * z;
+            }
+            double step = learningRate * error / norm;
+            for (int j = 0; j < weights.length; j++) {
+                weights[j] += step * standardized(j, row[j]) - learningRate * l2 * weights[j];
+            }
+        }
+
+        count++;
+        targetMean += (target - targetMean) / count;
+        for (int j = 0; j < weights.length; j++) {
+            double delta = row[j] - mean[j];
+            mean[j] += delta / count;
+            m2[j] += delta * (row[j] - mean[j]);
+        }
+    }
+
+    /** Forgets everything learned. */
+    public void reset() {
+        Arrays.fill(weights, 0.0);
+        Arrays.fill(mean, 0.0);
+        Arrays.fill(m2, 0.0);
+        count = 0;
+        targetMean = 0.0;
+    }
+
+    // A constant feature carries no information, so it standardizes to zero
+    private double standardized(int j, double x) {
+        double variance = count < 2 ? 0.0 : m2[j] / (count - 1);
+        return variance > 0 ? (x - mean[j]) / Math.sqrt(variance) : 0.0;
+    }
+}
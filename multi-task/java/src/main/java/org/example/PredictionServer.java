@@ -0,0 +1,254 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless JSON API over the same fetch and prediction engine as the GUI: {@code GET /current/{city}},
+ * {@code GET /predict/{city}} and {@code GET /forecast/{city}}. Requests are answered from the in-memory
+ * snapshots and models only, so a request never waits on the weather API, the database or a model being
+ * loaded or trained; until a city's data and models are ready its routes answer 503.
+ *
+ * {@code GET /metrics} serves {@link Metrics} in the Prometheus text format. Every response carries an
+ * X-Trace-Id header, taken from the request's X-Request-Id when it has a usable one, and log lines
+ * written while handling the request are tagged with it.
+ */
+public class PredictionServer implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(PredictionServer.class.getName());
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /** What the server needs from the application. Unknown cities throw IllegalArgumentException. */
+    public interface Backend {
+        /** Latest current conditions, or null if the city has not been fetched yet. */
+        WeatherTimeline.Current currentWeather(String city);
+
+        /** Tomorrow's predicted temperature, or empty if there is not enough data or no ready model yet. */
+        OptionalDouble predict(String city);
+
+        /** The multi-day forecast; its day list is empty if there is not enough data or no ready model yet. */
+        Forecaster.Forecast forecast(String city);
+    }
+
+    private interface Body {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    // Per-route metrics, looked up once per route and status instead of on every request
+    private static final class RouteMetrics {
+        private final String route;
+        private final Metrics.Timer latency;
+        private final Map<Integer, Metrics.Counter> responses = new ConcurrentHashMap<>();
+
+        RouteMetrics(String route) {
+            this.route = route;
+            this.latency = Metrics.timer("http_request_seconds", "Prediction server request latency", "route", route);
+        }
+
+        Metrics.Counter responses(int status) {
+            return responses.computeIfAbsent(status, code -> Metrics.counter("http_requests_total",
+                "Prediction server responses by route and status", "route", route, "status", Integer.toString(code)));
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Backend backend;
+
+    /**
+     * @param port    port to listen on, or 0 for any free port
+     * @param threads handler threads
+     */
+    public PredictionServer(int port, int threads, Backend backend) {
+        this.backend = backend;
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to bind prediction server to port " + port, e);
+        }
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        addRoute("current", this::current);
+        addRoute("predict", this::prediction);
+        addRoute("forecast", this::forecast);
+        server.createContext("/metrics", this::metrics);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.log(Level.INFO, "Prediction server listening on port {0,number,#}", port());
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Route {
+        void respond(HttpExchange exchange, String city) throws IOException;
+    }
+
+    private void addRoute(String name, Route route) {
+        String prefix = "/" + name + "/";
+        RouteMetrics metrics = new RouteMetrics(name);
+        server.createContext(prefix, exchange -> handle(exchange, prefix, metrics, route));
+    }
+
+    private void handle(HttpExchange exchange, String prefix, RouteMetrics metrics, Route route)
+        throws IOException {
+        String trace = Trace.fromClient(exchange.getRequestHeaders().getFirst("X-Request-Id"));
+        exchange.getResponseHeaders().set("X-Trace-Id", trace);
+        long start = System.nanoTime();
+        Trace.Scope scope = Trace.begin(trace);
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                error(exchange, 405, "Method not allowed");
+                return;
+            }
+            String city = URLDecoder.decode(
+                exchange.getRequestURI().getRawPath().substring(prefix.length()), StandardCharsets.UTF_8);
+            if (city.isEmpty() || city.indexOf('/') >= 0) {
+                error(exchange, 404, "Expected " + prefix + "{city}");
+                return;
+            }
+            route.respond(exchange, city);
+        } catch (IllegalArgumentException e) {
+            error(exchange, 404, e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, e, () -> Trace.tag(trace, "Failed to serve " + exchange.getRequestURI()));
+            error(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+            metrics.latency.stop(start);
+            metrics.responses(exchange.getResponseCode()).increment();
+            scope.close();
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                error(exchange, 405, "Method not allowed");
+                return;
+            }
+            byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void current(HttpExchange exchange, String city) throws IOException {
+        WeatherTimeline.Current current = backend.currentWeather(city);
+        if (current == null) {
+            error(exchange, 503, "No weather data for " + city + " yet");
+            return;
+        }
+        send(exchange, 200, json -> {
+            json.writeStringField("city", city);
+            writeNumber(json, "temp", current.temp());
+            writeNumber(json, "humidity", current.humidity());
+            writeNumber(json, "windspeed", current.windspeed());
+            json.writeStringField("conditions", current.conditions());
+        });
+    }
+
+    private void prediction(HttpExchange exchange, String city) throws IOException {
+        OptionalDouble prediction = backend.predict(city);
+        if (prediction.isEmpty()) {
+            error(exchange, 503, "No prediction for " + city + " yet");
+            return;
+        }
+        send(exchange, 200, json -> {
+            json.writeStringField("city", city);
+            writeNumber(json, "predictedTemp", prediction.getAsDouble());
+        });
+    }
+
+    private void forecast(HttpExchange exchange, String city) throws IOException {
+        Forecaster.Forecast forecast = backend.forecast(city);
+        if (forecast.days().isEmpty()) {
+            error(exchange, 503, "No forecast for " + city + " yet");
+            return;
+        }
+        send(exchange, 200, json -> {
+            json.writeStringField("city", city);
+            json.writeArrayFieldStart("days");
+            for (Forecaster.ForecastDay day : forecast.days()) {
+                json.writeStartObject();
+                json.writeStringField("date", day.date().toString());
+                json.writeNumberField("horizon", day.horizon());
+                writeNumber(json, "temp", day.temp());
+                writeNumber(json, "tempMax", day.tempMax());
+                writeNumber(json, "tempMin", day.tempMin());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        });
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, json -> json.writeStringField("error", message));
+    }
+
+    private static void send(HttpExchange exchange, int status, Body body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (JsonGenerator json = JSON.createGenerator(buffer)) {
+            json.writeStartObject();
+            body.write(json);
+            json.writeEndObject();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, buffer.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            buffer.writeTo(out);
+        }
+    }
+
+    // JSON has no NaN, so missing values are written as null
+    private static void writeNumber(JsonGenerator json, String name, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            json.writeNullField(name);
+        } else {
+            json.writeNumberField(name, value);
+        }
+    }
+}
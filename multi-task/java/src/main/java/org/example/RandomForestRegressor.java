@@ -0,0 +1,123 @@
+package org.example;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bagged ensemble of {@link RegressionTree}s, equivalent to sklearn's RandomForestRegressor defaults.
+ */
+public class RandomForestRegressor {
+    public static final int DEFAULT_TREES = 100;
+    public static final long DEFAULT_SEED = 42L;
+
+    private final int numTrees;
+    private final int maxDepth;
+    private final int minSamplesLeaf;
+    private final long seed;
+    private RegressionTree[] trees;
+    private int numFeatures;
+
+    public RandomForestRegressor() {
+        this(DEFAULT_TREES, Integer.MAX_VALUE, 1, DEFAULT_SEED);
+    }
+
+    public RandomForestRegressor(int numTrees, int maxDepth, int minSamplesLeaf, long seed) {
+        if (numTrees <= 0) {
+            throw new IllegalArgumentException("numTrees must be positive: " + numTrees);
+        }
+        this.numTrees = numTrees;
+        this.maxDepth = maxDepth;
+        this.minSamplesLeaf = minSamplesLeaf;
+        this.seed = seed;
+    }
+
+    RandomForestRegressor(RegressionTree[] trees, int numFeatures) {
+        this(trees.length, Integer.MAX_VALUE, 1, DEFAULT_SEED);
+        this.trees = trees;
+        this.numFeatures = numFeatures;
+    }
+
+    /**
+     * Fits the forest. Columns are feature-major: columns[f][row], all of the same length as target.
+     */
+    public RandomForestRegressor fit(double[][] columns, double[] target) {
+        int rows = target.length;
+        if (rows == 0) {
+            throw new IllegalArgumentException("Cannot fit a forest on an empty training set");
+        }
+        for (double[] column : columns) {
+            if (column.length != rows) {
+                throw new IllegalArgumentException("Column length " + column.length + " != target length " + rows);
+            }
+        }
+
+        RegressionTree[] fitted = new RegressionTree[numTrees];
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[numTrees];
+        for (int t = 0; t < numTrees; t++) {
+            int tree = t;
+            tasks[t] = ForkJoinTask.adapt(() -> fitted[tree] = fitTree(columns, target, tree));
+        }
+        // Forks into the caller's pool when called from one (see BatchTrainer), else the common pool
+        ForkJoinTask.invokeAll(tasks);
+        this.trees = fitted;
+        this.numFeatures = columns.length;
+        return this;
+    }
+
+    private RegressionTree fitTree(double[][] columns, double[] target, int tree) {
+        // Each tree gets its own stream so results don't depend on build order
+        int rows = target.length;
+        SplittableRandom random = new SplittableRandom(seed * 31 + tree);
+        int[] samples = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            samples[i] = random.nextInt(rows);
+        }
+        return RegressionTree.fit(columns, target, samples, maxDepth, minSamplesLeaf, columns.length, random);
+    }
+
+    public double predict(double[] row) {
+        if (trees == null) {
+            throw new IllegalStateException("Forest has not been fitted");
+        }
+        if (row.length != numFeatures) {
+            throw new IllegalArgumentException("Expected " + numFeatures + " features, got " + row.length);
+        }
+        double sum = 0.0;
+        for (RegressionTree tree : trees) {
+            sum += tree.predict(row);
+        }
+        return sum / trees.length;
+    }
+
+    /**
+     * Predicts every row of a row-major matrix holding {@link #getNumFeatures()} values per row.
+     * Trees form the outer loop so each tree's node arrays stay in cache while all rows walk it.
+     */
+    public double[] predictBatch(double[] matrix) {
+        if (trees == null) {
+            throw new IllegalStateException("Forest has not been fitted");
+        }
+        if (matrix.length % numFeatures != 0) {
+            throw new IllegalArgumentException("Matrix length " + matrix.length + " is not a multiple of " + numFeatures);
+        }
+        int rows = matrix.length / numFeatures;
+        double[] out = new double[rows];
+        for (RegressionTree tree : trees) {
+            for (int r = 0, offset = 0; r < rows; r++, offset += numFeatures) {
+                out[r] += tree.predict(matrix, offset);
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            out[r] /= trees.length;
+        }
+        return out;
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    RegressionTree[] getTrees() {
+        return trees;
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps every city's weather fresh in the background. Each city is refreshed on its own jittered
+ * interval so requests do not line up, and a city whose refresh fails backs off exponentially
+ * (with jitter, up to a cap) until it succeeds again. Successful results go to the publisher.
+ */
+public class RefreshScheduler implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(RefreshScheduler.class.getName());
+
+    /** Share of the interval added at random to each regular refresh. */
+    static final double JITTER = 0.2;
+
+    private final Function<String, CompletableFuture<WeatherFetcher.CityWeather>> fetch;
+    private final Consumer<WeatherFetcher.CityWeather> publisher;
+    private final long intervalMillis;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param interval   time between successful refreshes of one city, before jitter
+     * @param backoff    delay after the first failure; doubled on each further failure
+     * @param maxBackoff upper bound for the failure delay
+     */
+    public RefreshScheduler(Function<String, CompletableFuture<WeatherFetcher.CityWeather>> fetch,
+                            Consumer<WeatherFetcher.CityWeather> publisher,
+                            Duration interval, Duration backoff, Duration maxBackoff) {
+        this.fetch = fetch;
+        this.publisher = publisher;
+        this.intervalMillis = interval.toMillis();
+        this.backoffMillis = backoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    /**
+     * Schedules the first refresh of each city: one interval plus up to {@link #JITTER} of it from now, or
+     * on the backoff schedule for a city with failures already recorded.
+     */
+    public void start(List<String> cities) {
+        for (String city : cities) {
+            schedule(city, nextDelayMillis(failureCount(city), intervalMillis, backoffMillis, maxBackoffMillis,
+                ThreadLocalRandom.current().nextDouble()));
+        }
+        LOGGER.log(Level.INFO, "Refreshing {0,number,#} cities every {1,number,#}s",
+            new Object[]{cities.size(), intervalMillis / 1000});
+    }
+
+    /**
+     * Counts a failed fetch made outside the scheduler, such as the startup prefetch, so the city's next
+     * refresh backs off instead of waiting a full interval. Call before {@link #start}.
+     */
+    public void recordFailure(String city) {
+        failures.merge(city, 1, Integer::sum);
+    }
+
+    /** Consecutive failed refreshes for a city. */
+    public int failureCount(String city) {
+        return failures.getOrDefault(city, 0);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void schedule(String city, long delayMillis) {
+        try {
+            scheduler.schedule(() -> refresh(city), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed while a refresh was in flight
+        }
+    }
+
+    private void refresh(String city) {
+        CompletableFuture<WeatherFetcher.CityWeather> result;
+        try {
+            result = fetch.apply(city);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((weather, error) -> {
+            boolean ok = error == null && weather != null && weather.current() != null;
+            if (ok) {
+                try {
+                    publisher.accept(weather);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to publish weather for {0}: {1}", new Object[]{city, e.getMessage()});
+                }
+                failures.remove(city);
+            } else {
+                int count = failures.merge(city, 1, Integer::sum);
+                LOGGER.warning(() -> "Refresh failed for " + city + " (" + count + " in a row)"
+                    + (error != null ? ": " + error.getMessage() : ""));
+            }
+            schedule(city, nextDelayMillis(failureCount(city), intervalMillis, backoffMillis, maxBackoffMillis,
+                ThreadLocalRandom.current().nextDouble()));
+        });
+    }
+
+    /**
+     * Delay before the next refresh. With no failures this is the interval plus up to
+     * {@link #JITTER} of it; after n failures it is backoff * 2^(n-1), capped, and then
+     * drawn uniformly from its upper half so failing cities do not retry in lockstep.
+     *
+     * @param random uniform value in [0, 1)
+     */
+    static long nextDelayMillis(int failures, long intervalMillis, long backoffMillis, long maxBackoffMillis,
+                                double random) {
+        if (failures == 0) {
+            return intervalMillis + (long) (intervalMillis * JITTER * random);
+        }
+        long delay = backoffMillis << Math.min(failures - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMillis) {
+            delay = maxBackoffMillis;
+        }
+        return delay / 2 + (long) (delay / 2 * random);
+    }
+}
@@ -0,0 +1,280 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * CART regression tree stored as flat primitive arrays. A node with feature -1 is a leaf.
+ */
+public class RegressionTree {
+    private final int[] feature;
+    private final double[] threshold;
+    private final int[] left;
+    private final int[] right;
+    private final double[] value;
+
+    RegressionTree(int[] feature, double[] threshold, int[] left, int[] right, double[] value) {
+        this.feature = feature;
+        this.threshold = threshold;
+        this.left = left;
+        this.right = right;
+        this.value = value;
+    }
+
+    public double predict(double[] row) {
+        return predict(row, 0);
+    }
+
+    /** Predicts the row whose features start at {@code matrix[offset]}. */
+    double predict(double[] matrix, int offset) {
+        int node = 0;
+        while (feature[node] >= 0) {
+            node = matrix[offset + feature[node]] <= threshold[node] ? left[node] : right[node];
+        }
+        return value[node];
+    }
+
+    public int nodeCount() {
+        return feature.length;
+    }
+
+    int[] features() {
+        return feature;
+    }
+
+    double[] thresholds() {
+        return threshold;
+    }
+
+    int[] leftChildren() {
+        return left;
+    }
+
+    int[] rightChildren() {
+        return right;
+    }
+
+    double[] values() {
+        return value;
+    }
+
+    /**
+     * Grows a tree on the given sample indices. Columns are feature-major: columns[f][row].
+     */
+    static RegressionTree fit(double[][] columns, double[] target, int[] samples,
+                              int maxDepth, int minSamplesLeaf, int maxFeatures, SplittableRandom random) {
+        Builder builder = new Builder(columns, target, maxDepth, minSamplesLeaf, maxFeatures, random);
+        builder.grow(samples.clone(), 0, samples.length, 0);
+        return builder.build();
+    }
+
+    private static final class Builder {
+        private final double[][] columns;
+        private final double[] target;
+        private final int maxDepth;
+        private final int minSamplesLeaf;
+        private final int maxFeatures;
+        private final SplittableRandom random;
+
+        private int size;
+        private int[] feature = new int[64];
+        private double[] threshold = new double[64];
+        private int[] left = new int[64];
+        private int[] right = new int[64];
+        private double[] value = new double[64];
+
+        // Scratch buffers reused across nodes
+        private double[] keys;
+        private int[] order;
+
+        Builder(double[][] columns, double[] target, int maxDepth, int minSamplesLeaf,
+                int maxFeatures, SplittableRandom random) {
+            this.columns = columns;
+            this.target = target;
+            this.maxDepth = maxDepth;
+            this.minSamplesLeaf = minSamplesLeaf;
+            this.maxFeatures = maxFeatures;
+            this.random = random;
+        }
+
+        int grow(int[] samples, int from, int to, int depth) {
+            int node = newNode();
+            int n = to - from;
+
+            double sum = 0.0;
+            double sumSq = 0.0;
+            for (int i = from; i < to; i++) {
+                double y = target[samples[i]];
+                sum += y;
+                sumSq += y * y;
+            }
+            value[node] = sum / n;
+
+            double impurity = sumSq - sum * sum / n;
+            if (depth >= maxDepth || n < 2 * minSamplesLeaf || impurity <= 1e-12) {
+                return node;
+            }
+
+            int bestFeature = -1;
+            double bestThreshold = 0.0;
+            double bestScore = impurity;
+
+            for (int f : candidateFeatures()) {
+                sortByFeature(samples, from, to, f);
+
+                double leftSum = 0.0;
+                double leftSq = 0.0;
+                for (int i = 0; i < n - 1; i++) {
+                    double y = target[order[i]];
+                    leftSum += y;
+                    leftSq += y * y;
+
+                    int leftCount = i + 1;
+                    int rightCount = n - leftCount;
+                    if (leftCount < minSamplesLeaf || rightCount < minSamplesLeaf || keys[i] == keys[i + 1]) {
+                        continue;
+                    }
+                    double rightSum = sum - leftSum;
+                    double score = (leftSq - leftSum * leftSum / leftCount)
+                                 + (sumSq - leftSq - rightSum * rightSum / rightCount);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestFeature = f;
+                        // Adjacent doubles can round the midpoint up to the right key, which would put
+                        // every sample on the left
+                        double midpoint = (keys[i] + keys[i + 1]) / 2.0;
+                        bestThreshold = midpoint < keys[i + 1] ? midpoint : keys[i];
+                    }
+                }
+            }
+
+            if (bestFeature < 0) {
+                return node;
+            }
+
+            // Partition samples in place around the chosen threshold
+            double[] column = columns[bestFeature];
+            int mid = from;
+            for (int i = from; i < to; i++) {
+                if (column[samples[i]] <= bestThreshold) {
+                    int tmp = samples[mid];
+                    samples[mid] = samples[i];
+                    samples[i] = tmp;
+                    mid++;
+                }
+            }
+
+            feature[node] = bestFeature;
+            threshold[node] = bestThreshold;
+            // Children may reallocate the node arrays, so assign after both calls return
+            int leftChild = grow(samples, from, mid, depth + 1);
+            int rightChild = grow(samples, mid, to, depth + 1);
+            left[node] = leftChild;
+            right[node] = rightChild;
+            return node;
+        }
+
+        private int[] candidateFeatures() {
+            int total = columns.length;
+            int[] all = new int[total];
+            for (int i = 0; i < total; i++) {
+                all[i] = i;
+            }
+            if (maxFeatures >= total) {
+                return all;
+            }
+            // Partial Fisher-Yates shuffle to pick maxFeatures distinct features
+            for (int i = 0; i < maxFeatures; i++) {
+                int j = i + random.nextInt(total - i);
+                int tmp = all[i];
+                all[i] = all[j];
+                all[j] = tmp;
+            }
+            return Arrays.copyOf(all, maxFeatures);
+        }
+
+        private void sortByFeature(int[] samples, int from, int to, int f) {
+            int n = to - from;
+            if (keys == null || keys.length < n) {
+                keys = new double[n];
+                order = new int[n];
+            }
+            double[] column = columns[f];
+            for (int i = 0; i < n; i++) {
+                order[i] = samples[from + i];
+                keys[i] = column[order[i]];
+            }
+            quickSort(keys, order, 0, n - 1);
+        }
+
+        private int newNode() {
+            if (size == feature.length) {
+                int capacity = size * 2;
+                feature = Arrays.copyOf(feature, capacity);
+                threshold = Arrays.copyOf(threshold, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                value = Arrays.copyOf(value, capacity);
+            }
+            feature[size] = -1;
+            left[size] = -1;
+            right[size] = -1;
+            return size++;
+        }
+
+        RegressionTree build() {
+            return new RegressionTree(
+                Arrays.copyOf(feature, size),
+                Arrays.copyOf(threshold, size),
+                Arrays.copyOf(left, size),
+                Arrays.copyOf(right, size),
+                Arrays.copyOf(value, size));
+        }
+    }
+
+    // Sorts keys ascending and applies the same permutation to values
+    private static void quickSort(double[] keys, int[] values, int lo, int hi) {
+        while (lo < hi) {
+            if (hi - lo < 16) {
+                for (int i = lo + 1; i <= hi; i++) {
+                    double k = keys[i];
+                    int v = values[i];
+                    int j = i - 1;
+                    while (j >= lo && keys[j] > k) {
+                        keys[j + 1] = keys[j];
+                        values[j + 1] = values[j];
+                        j--;
+                    }
+                    keys[j + 1] = k;
+                    values[j + 1] = v;
+                }
+                return;
+            }
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    double tk = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = tk;
+                    int tv = values[i];
+                    values[i] = values[j];
+                    values[j] = tv;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half to bound stack depth
+            if (j - lo < hi - i) {
+                quickSort(keys, values, lo, j);
+                lo = i;
+            } else {
+                quickSort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+    }
+}
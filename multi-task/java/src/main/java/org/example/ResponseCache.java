@@ -0,0 +1,351 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Response cache for weather API bodies: an in-memory LRU with per-entry expiry, an optional on-disk
+ * store that survives restarts, and collapsing of concurrent loads for the same key into one call.
+ * Stale entries keep their validators so the loader can revalidate with a conditional request. Entries
+ * on disk that have not been written for the retention period are deleted.
+ */
+public class ResponseCache {
+    private static final Logger LOGGER = Logger.getLogger(ResponseCache.class.getName());
+    private static final String LOOKUPS = "weather_cache_lookups_total";
+    private static final String LOOKUPS_HELP = "Response cache lookups by outcome";
+    private static final Metrics.Counter HITS = Metrics.counter(LOOKUPS, LOOKUPS_HELP, "result", "hit");
+    private static final Metrics.Counter JOINED = Metrics.counter(LOOKUPS, LOOKUPS_HELP, "result", "joined");
+    private static final Metrics.Counter EXPIRED = Metrics.counter(LOOKUPS, LOOKUPS_HELP, "result", "expired");
+    private static final Metrics.Counter MISSES = Metrics.counter(LOOKUPS, LOOKUPS_HELP, "result", "miss");
+
+    static {
+        // Joining an in-flight load costs no request, so it counts as a hit
+        Metrics.gauge("weather_cache_hit_ratio", "Share of lookups answered without a new request", () -> {
+            double hits = HITS.getCount() + JOINED.getCount();
+            double total = hits + EXPIRED.getCount() + MISSES.getCount();
+            return total == 0 ? Double.NaN : hits / total;
+        });
+    }
+    private static final int DISK_FORMAT = 1;
+
+    /** How long an entry stays on disk after it was last written; keys carry dates, so old ones never recur. */
+    public static final Duration DEFAULT_DISK_RETENTION = Duration.ofDays(7);
+    private static final long SWEEP_INTERVAL_MILLIS = Duration.ofHours(1).toMillis();
+
+    /** A cached body with its HTTP validators and absolute expiry time in epoch millis. */
+    public record Entry(String body, String etag, String lastModified, long expiresAt) {
+        public Entry {
+            etag = etag == null ? "" : etag;
+            lastModified = lastModified == null ? "" : lastModified;
+        }
+
+        public Entry withExpiry(long newExpiresAt) {
+            return new Entry(body, etag, lastModified, newExpiresAt);
+        }
+    }
+
+    /**
+     * Produces a fresh entry. {@code stale} is the expired entry, if any, for conditional requests.
+     * The future may complete with null to signal a failed load that must not be cached.
+     */
+    public interface Loader {
+        CompletableFuture<Entry> load(Entry stale);
+    }
+
+    /** A load failed while only an expired body was cached. */
+    public static final class StaleResponseException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final String body;
+
+        StaleResponseException(String key, String body, Throwable cause) {
+            super("Failed to refresh " + key + "; only a stale response is cached", cause);
+            this.body = body;
+        }
+
+        /** The expired body, still usable as a fallback. */
+        public String body() {
+            return body;
+        }
+    }
+
+    private final Map<String, Entry> memory;
+    private final Path diskDir;
+    private final long retentionMillis;
+    private final LongSupplier clock;
+    private final AtomicLong lastSweep = new AtomicLong(Long.MIN_VALUE);
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxEntries maximum entries held in memory
+     * @param diskDir    directory for the persistent store, or null for memory only
+     */
+    public ResponseCache(int maxEntries, Path diskDir) {
+        this(maxEntries, diskDir, DEFAULT_DISK_RETENTION, System::currentTimeMillis);
+    }
+
+    ResponseCache(int maxEntries, Path diskDir, LongSupplier clock) {
+        this(maxEntries, diskDir, DEFAULT_DISK_RETENTION, clock);
+    }
+
+    /**
+     * @param retention entries on disk not written for this long are deleted, checked at most hourly on write
+     */
+    ResponseCache(int maxEntries, Path diskDir, Duration retention, LongSupplier clock) {
+        this.memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.diskDir = diskDir;
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Returns the cached body if it is still fresh, otherwise loads it once no matter how many callers
+     * ask concurrently. If the load fails and a stale body exists, the result fails with a
+     * {@link StaleResponseException} carrying it, so callers can fall back to it and still see the failure.
+     */
+    public CompletableFuture<String> get(String key, Loader loader) {
+        Entry cached = lookup(key);
+        if (cached != null && cached.expiresAt() > now()) {
+            HITS.increment();
+            return CompletableFuture.completedFuture(cached.body());
+        }
+
+        boolean[] owner = new boolean[1];
+        CompletableFuture<String> promise = inFlight.computeIfAbsent(key, k -> {
+            owner[0] = true;
+            return new CompletableFuture<>();
+        });
+        if (!owner[0]) {
+            JOINED.increment();
+            return promise;
+        }
+        // A load that finished after the lookup above published its entry before leaving the map
+        Entry stale = lookup(key);
+        if (stale != null && stale.expiresAt() > now()) {
+            inFlight.remove(key, promise);
+            HITS.increment();
+            promise.complete(stale.body());
+            return promise;
+        }
+        (stale != null ? EXPIRED : MISSES).increment();
+
+        CompletableFuture<Entry> load;
+        try {
+            load = loader.load(stale);
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((entry, error) -> {
+            // Publish before leaving the in-flight map so late callers see the new entry
+            if (error == null && entry != null) {
+                put(key, entry);
+            }
+            inFlight.remove(key, promise);
+            if (error == null && entry != null) {
+                promise.complete(entry.body());
+            } else if (stale != null) {
+                promise.completeExceptionally(new StaleResponseException(key, stale.body(), error));
+            } else if (error != null) {
+                promise.completeExceptionally(error);
+            } else {
+                promise.complete(null);
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * The cached entry whether or not it has expired, or null; never loads and is not counted as a lookup.
+     */
+    public Entry peek(String key) {
+        return lookup(key);
+    }
+
+    /**
+     * The most recently loaded entry, expired or not, among those whose key matches, in memory or on disk,
+     * with its key; null if there is none. Reads every entry on disk, so it is for startup rather than lookups.
+     */
+    public Stored latest(Predicate<String> keys) {
+        Stored latest = null;
+        synchronized (memory) {
+            for (Map.Entry<String, Entry> cached : memory.entrySet()) {
+                if (keys.test(cached.getKey()) && (latest == null || cached.getValue().expiresAt() > latest.entry().expiresAt())) {
+                    latest = new Stored(cached.getKey(), cached.getValue());
+                }
+            }
+        }
+        if (diskDir == null || !Files.isDirectory(diskDir)) {
+            return latest;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDir, "*.cache")) {
+            for (Path file : files) {
+                Stored stored = readFile(file);
+                if (stored != null && keys.test(stored.key())
+                    && (latest == null || stored.entry().expiresAt() > latest.entry().expiresAt())) {
+                    latest = stored;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to list cached responses in {0}: {1}", new Object[]{diskDir, e.getMessage()});
+        }
+        return latest;
+    }
+
+    public void put(String key, Entry entry) {
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        if (diskDir != null) {
+            writeToDisk(key, entry);
+        }
+    }
+
+    public void invalidate(String key) {
+        synchronized (memory) {
+            memory.remove(key);
+        }
+        if (diskDir != null) {
+            try {
+                Files.deleteIfExists(diskFile(key));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to remove cached response for {0}: {1}", new Object[]{key, e.getMessage()});
+            }
+        }
+    }
+
+    private Entry lookup(String key) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry == null && diskDir != null) {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.putIfAbsent(key, entry);
+                }
+            }
+        }
+        return entry;
+    }
+
+    private Entry readFromDisk(String key) {
+        Stored stored = readFile(diskFile(key));
+        return stored != null && stored.key().equals(key) ? stored.entry() : null;
+    }
+
+    /** An entry together with the key it is cached under. */
+    public record Stored(String key, Entry entry) {
+    }
+
+    private static Stored readFile(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != DISK_FORMAT) {
+                return null;
+            }
+            String key = in.readUTF();
+            long expiresAt = in.readLong();
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Stored(key, new Entry(new String(body, StandardCharsets.UTF_8), etag, lastModified, expiresAt));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable cached response {0}: {1}",
+                new Object[]{file.getFileName(), e.getMessage()});
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        try {
+            Files.createDirectories(diskDir);
+            Path target = diskFile(key);
+            Path temp = Files.createTempFile(diskDir, "entry", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                byte[] body = entry.body().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(DISK_FORMAT);
+                out.writeUTF(key);
+                out.writeLong(entry.expiresAt());
+                out.writeUTF(entry.etag());
+                out.writeUTF(entry.lastModified());
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to persist cached response for {0}: {1}", new Object[]{key, e.getMessage()});
+        }
+        evictOldEntries();
+    }
+
+    // Keys carry the request dates, so without this the directory would gain a file per city per day
+    private void evictOldEntries() {
+        long now = now();
+        long last = lastSweep.get();
+        if ((last != Long.MIN_VALUE && now - last < SWEEP_INTERVAL_MILLIS) || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDir, "*.cache")) {
+            for (Path file : files) {
+                if (now - Files.getLastModifiedTime(file).toMillis() > retentionMillis && Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to evict old cached responses from {0}: {1}",
+                new Object[]{diskDir, e.getMessage()});
+        }
+        if (removed > 0) {
+            LOGGER.log(Level.FINE, "Evicted {0,number,#} cached responses older than {1,number,#}s",
+                new Object[]{removed, retentionMillis / 1000});
+        }
+    }
+
+    private Path diskFile(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(40);
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+            return diskDir.resolve(name.append(".cache").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
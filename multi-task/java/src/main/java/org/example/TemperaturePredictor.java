@@ -0,0 +1,208 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Trains one random forest per city from its history CSV and keeps it in memory.
+ * Features match the Python scripts: today's temp, tomorrow's humidity and windspeed -> tomorrow's temp.
+ *
+ * When an {@link ObservationStore} is supplied, completed days recorded after the CSV are appended to
+ * the in-memory training rows and the model is refitted without re-reading the CSV.
+ */
+public class TemperaturePredictor {
+    private static final Logger LOGGER = Logger.getLogger(TemperaturePredictor.class.getName());
+
+    static final String[] FEATURE_NAMES = {"temp", "next_humidity", "next_windspeed"};
+
+    private static final Metrics.Timer PREDICT_LATENCY =
+        Metrics.timer("prediction_seconds", "Model prediction latency", "model", "next_day");
+    private static final Metrics.Timer TRAIN_DURATION =
+        Metrics.timer("training_seconds", "Model fitting time, excluding loading the history", "model", "next_day");
+
+    private final Path historyDir;
+    private final ModelStore modelStore;
+    private final ObservationStore observations;
+    private final ModelCache<RandomForestRegressor> models = new ModelCache<>();
+    private final ConcurrentMap<String, TrainingSet> trainingSets = new ConcurrentHashMap<>();
+
+    public TemperaturePredictor(Path historyDir) {
+        this(historyDir, null, null);
+    }
+
+    public TemperaturePredictor(Path historyDir, ModelStore modelStore) {
+        this(historyDir, modelStore, null);
+    }
+
+    /**
+     * @param modelStore   where trained models are cached between runs, or null to always train
+     * @param observations daily observations recorded after the CSV history, or null to use the CSV only
+     */
+    public TemperaturePredictor(Path historyDir, ModelStore modelStore, ObservationStore observations) {
+        this.historyDir = historyDir;
+        this.modelStore = modelStore;
+        this.observations = observations;
+    }
+
+    /**
+     * Returns the trained model for the city, training it on first use.
+     */
+    public RandomForestRegressor modelFor(String city) {
+        return models.get(city, () -> train(city));
+    }
+
+    /**
+     * Re-reads the city's history and fits a new model even if a stored one matches, for use after the
+     * history files were replaced in place.
+     */
+    public RandomForestRegressor retrain(String city) {
+        trainingSets.remove(key(city));
+        TrainingSet set = trainingSet(city);
+        appendObservations(city, set);
+        RandomForestRegressor model = fit(city, set, modelStore != null ? sourceKey(city) : null);
+        models.put(city, model);
+        return model;
+    }
+
+    public boolean isTrained(String city) {
+        return models.isReady(city);
+    }
+
+    /**
+     * Folds completed days observed since the last fit into the training rows and refits.
+     *
+     * @return true if the model changed
+     */
+    public boolean refresh(String city) {
+        if (observations == null || !isTrained(city)) {
+            return false;
+        }
+        TrainingSet set = trainingSet(city);
+        // Locks only this city, so an older fit cannot be published over a newer one
+        synchronized (set) {
+            if (appendObservations(city, set) == 0) {
+                return false;
+            }
+            models.put(city, fit(city, set, sourceKey(city)));
+            return true;
+        }
+    }
+
+    public double predict(String city, double todayTemp, double tomorrowHumidity, double tomorrowWindspeed) {
+        RandomForestRegressor model = modelFor(city);
+        long start = System.nanoTime();
+        double prediction = model.predict(new double[]{todayTemp, tomorrowHumidity, tomorrowWindspeed});
+        PREDICT_LATENCY.stop(start);
+        return prediction;
+    }
+
+    private RandomForestRegressor train(String city) {
+        long start = System.nanoTime();
+        String sourceKey = modelStore != null ? sourceKey(city) : null;
+        if (modelStore != null) {
+            RandomForestRegressor stored = modelStore.load(city, sourceKey);
+            if (stored != null) {
+                LOGGER.log(Level.INFO, "Loaded stored model for {0} in {1,number,#} ms",
+                    new Object[]{city, (System.nanoTime() - start) / 1_000_000});
+                return stored;
+            }
+        }
+        TrainingSet set = trainingSet(city);
+        appendObservations(city, set);
+        return fit(city, set, sourceKey);
+    }
+
+    private RandomForestRegressor fit(String city, TrainingSet set, String sourceKey) {
+        double[][] features;
+        double[] target;
+        synchronized (set) {
+            features = set.features();
+            target = set.target();
+        }
+        long start = System.nanoTime();
+        RandomForestRegressor model = new RandomForestRegressor().fit(features, target);
+        TRAIN_DURATION.stop(start);
+        LOGGER.log(Level.INFO, "Trained model for {0} on {1,number,#} rows in {2,number,#} ms",
+            new Object[]{city, target.length, (System.nanoTime() - start) / 1_000_000});
+        if (modelStore != null) {
+            modelStore.save(city, sourceKey, model);
+        }
+        return model;
+    }
+
+    private TrainingSet trainingSet(String city) {
+        return trainingSets.computeIfAbsent(key(city), k -> TrainingSet.fromCsv(findHistoryFile(historyDir, city)));
+    }
+
+    // Only days before today are complete; today's values keep changing until midnight. The set's lock is
+    // held from reading its last day to appending, since train, retrain and refresh can run for the same
+    // city at once on GUI, server and batch threads.
+    private int appendObservations(String city, TrainingSet set) {
+        if (observations == null) {
+            return 0;
+        }
+        synchronized (set) {
+            LocalDate after = set.lastDay() == Long.MIN_VALUE ? LocalDate.MIN : LocalDate.ofEpochDay(set.lastDay());
+            ObservationStore.Range range = observations.since(city, after);
+            long today = LocalDate.now().toEpochDay();
+            int complete = 0;
+            while (complete < range.size() && range.days()[complete] < today) {
+                complete++;
+            }
+            if (complete == 0) {
+                return 0;
+            }
+            return set.appendDays(
+                Arrays.copyOf(range.days(), complete),
+                Arrays.copyOf(range.column(ObservationField.TEMP), complete),
+                Arrays.copyOf(range.column(ObservationField.HUMIDITY), complete),
+                Arrays.copyOf(range.column(ObservationField.WIND_SPEED), complete));
+        }
+    }
+
+    // Identifies the training data: the CSV content plus the last completed observed day, if any
+    private String sourceKey(String city) {
+        return sourceKey(historyDir, observations, city);
+    }
+
+    static String sourceKey(Path historyDir, ObservationStore observations, String city) {
+        String key = ModelStore.hashOf(findHistoryFile(historyDir, city));
+        if (observations != null) {
+            Optional<LocalDate> last = observations.lastDate(city);
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            if (last.isPresent()) {
+                LocalDate upTo = last.get().isAfter(yesterday) ? yesterday : last.get();
+                key += "-" + upTo.toEpochDay();
+            }
+        }
+        return key;
+    }
+
+    static Path findHistoryFile(Path dir, String city) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.csv")) {
+            for (Path file : files) {
+                String fileCity = CityRegistry.cityOf(file);
+                if (fileCity != null && fileCity.equalsIgnoreCase(city)) {
+                    return file;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list history directory " + dir, e);
+        }
+        throw new IllegalArgumentException("No history CSV for " + city + " in " + dir);
+    }
+
+    private static String key(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+}
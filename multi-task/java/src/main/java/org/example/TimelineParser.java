@@ -0,0 +1,151 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming extractor for timeline responses. Only the fields in {@link WeatherTimeline} are read;
+ * everything else, including the {@code hours} arrays and station metadata, is skipped token-wise
+ * without building a tree.
+ */
+public final class TimelineParser {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private TimelineParser() {
+    }
+
+    public static WeatherTimeline parse(String json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            return parse(parser);
+        }
+    }
+
+    public static WeatherTimeline parse(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            return parse(parser);
+        }
+    }
+
+    private static WeatherTimeline parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Timeline response is not a JSON object");
+        }
+        String address = null;
+        String timezone = null;
+        WeatherTimeline.Current current = null;
+        List<WeatherTimeline.Day> days = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "address" -> address = text(parser, value);
+                case "timezone" -> timezone = text(parser, value);
+                case "currentConditions" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        current = parseCurrent(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "days" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        // Elements that are not objects are skipped rather than ending the array
+                        for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY && element != null;
+                             element = parser.nextToken()) {
+                            if (element == JsonToken.START_OBJECT) {
+                                days.add(parseDay(parser));
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new WeatherTimeline(address, timezone, current, days);
+    }
+
+    private static WeatherTimeline.Current parseCurrent(JsonParser parser) throws IOException {
+        double temp = Double.NaN;
+        double humidity = Double.NaN;
+        double windspeed = Double.NaN;
+        String conditions = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "temp" -> temp = number(parser, value);
+                case "humidity" -> humidity = number(parser, value);
+                case "windspeed" -> windspeed = number(parser, value);
+                case "conditions" -> conditions = text(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return new WeatherTimeline.Current(temp, humidity, windspeed, conditions);
+    }
+
+    private static WeatherTimeline.Day parseDay(JsonParser parser) throws IOException {
+        LocalDate date = null;
+        double temp = Double.NaN;
+        double tempMax = Double.NaN;
+        double tempMin = Double.NaN;
+        double humidity = Double.NaN;
+        double windspeed = Double.NaN;
+        double windDir = Double.NaN;
+        double dew = Double.NaN;
+        double pressure = Double.NaN;
+        double cloudCover = Double.NaN;
+        double solarRadiation = Double.NaN;
+        double precip = Double.NaN;
+        String conditions = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "datetime" -> {
+                    String text = text(parser, value);
+                    date = text == null ? null : LocalDate.parse(text);
+                }
+                case "temp" -> temp = number(parser, value);
+                case "tempmax" -> tempMax = number(parser, value);
+                case "tempmin" -> tempMin = number(parser, value);
+                case "humidity" -> humidity = number(parser, value);
+                case "windspeed" -> windspeed = number(parser, value);
+                case "winddir" -> windDir = number(parser, value);
+                case "dew" -> dew = number(parser, value);
+                case "pressure" -> pressure = number(parser, value);
+                case "cloudcover" -> cloudCover = number(parser, value);
+                case "solarradiation" -> solarRadiation = number(parser, value);
+                case "precip" -> precip = number(parser, value);
+                case "conditions" -> conditions = text(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return new WeatherTimeline.Day(date, temp, tempMax, tempMin, humidity, windspeed,
+            windDir, dew, pressure, cloudCover, solarRadiation, precip, conditions);
+    }
+
+    private static double number(JsonParser parser, JsonToken value) throws IOException {
+        return value.isNumeric() ? parser.getDoubleValue() : Double.NaN;
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace IDs that tie together the log lines of one request. The ID is bound to the handling thread for
+ * the duration of a {@link Scope}; asynchronous stages capture it explicitly.
+ */
+public final class Trace {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    private static final int MAX_LENGTH = 64;
+
+    private Trace() {
+    }
+
+    /** Restores the previous trace ID when closed. */
+    public static final class Scope implements AutoCloseable {
+        private final String previous;
+
+        private Scope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /** A new random 16-digit hex ID. */
+    public static String newId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Returns {@code candidate} if it is a usable ID from a client, such as an X-Request-Id header,
+     * otherwise a new one.
+     */
+    public static String fromClient(String candidate) {
+        if (candidate == null || candidate.isEmpty() || candidate.length() > MAX_LENGTH) {
+            return newId();
+        }
+        for (int i = 0; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (!(Character.isLetterOrDigit(c) && c < 128) && c != '-' && c != '_' && c != '.') {
+                return newId();
+            }
+        }
+        return candidate;
+    }
+
+    public static Scope begin(String id) {
+        String previous = CURRENT.get();
+        CURRENT.set(id);
+        return new Scope(previous);
+    }
+
+    /** The current thread's trace ID, or "-" outside a traced request. */
+    public static String current() {
+        String id = CURRENT.get();
+        return id == null ? "-" : id;
+    }
+
+    /** The current thread's trace ID, or a new one to start a trace with. */
+    public static String currentOrNew() {
+        String id = CURRENT.get();
+        return id == null ? newId() : id;
+    }
+
+    /** Prefixes a log message with the current trace ID. */
+    public static String tag(String message) {
+        return tag(current(), message);
+    }
+
+    /** Prefixes a log message with a captured trace ID, for stages running on other threads. */
+    public static String tag(String id, String message) {
+        return "[trace=" + id + "] " + message;
+    }
+}
@@ -0,0 +1,114 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Growable training rows for the next-day temperature model: {temp, next_humidity, next_windspeed}
+ * features with the next day's temp as target. Rows are built from consecutive days, so new daily
+ * observations can be appended without re-reading the history they follow.
+ *
+ * A set is shared by every thread that trains or refreshes its city, so its methods are synchronized;
+ * callers that must see a consistent {@link #lastDay()}, append and copy hold the set's lock around them.
+ */
+final class TrainingSet {
+    private double[] temp = new double[1024];
+    private double[] nextHumidity = new double[1024];
+    private double[] nextWindspeed = new double[1024];
+    private double[] target = new double[1024];
+    private int size;
+
+    // The most recent day seen, which the next appended day pairs with
+    private long lastDay = Long.MIN_VALUE;
+    private double lastTemp = Double.NaN;
+
+    /**
+     * Reads the history CSV, dropping pairs where any value is missing (pandas shift(-1) + dropna).
+     */
+    static TrainingSet fromCsv(Path csv) {
+        ColumnTable table;
+        try {
+            table = new ColumnarCsvReader(
+                ColumnarCsvReader.Column.epochDays("datetime"),
+                ColumnarCsvReader.Column.doubles("temp"),
+                ColumnarCsvReader.Column.doubles("humidity"),
+                ColumnarCsvReader.Column.doubles("windspeed")).read(csv);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read history CSV " + csv, e);
+        }
+        TrainingSet set = new TrainingSet();
+        set.appendConsecutive(table.epochDays("datetime"), table.doubles("temp"),
+            table.doubles("humidity"), table.doubles("windspeed"), table.rows());
+        return set;
+    }
+
+    /**
+     * Appends days in file order, treating each row as the day after the previous one, as the
+     * Python scripts' shift(-1) did.
+     */
+    private void appendConsecutive(long[] days, double[] temps, double[] humidity, double[] windspeed, int n) {
+        for (int i = 1; i < n; i++) {
+            addRow(temps[i - 1], humidity[i], windspeed[i], temps[i]);
+        }
+        if (n > 0) {
+            lastDay = days[n - 1];
+            lastTemp = temps[n - 1];
+        }
+    }
+
+    /**
+     * Appends observed days after {@link #lastDay()}. A day only forms a row with the calendar day
+     * before it; days already covered are ignored.
+     */
+    synchronized int appendDays(long[] days, double[] temps, double[] humidity, double[] windspeed) {
+        int before = size;
+        for (int i = 0; i < days.length; i++) {
+            if (days[i] <= lastDay) {
+                continue;
+            }
+            if (days[i] == lastDay + 1) {
+                addRow(lastTemp, humidity[i], windspeed[i], temps[i]);
+            }
+            lastDay = days[i];
+            lastTemp = temps[i];
+        }
+        return size - before;
+    }
+
+    private void addRow(double todayTemp, double humidity, double windspeed, double nextTemp) {
+        if (Double.isNaN(todayTemp) || Double.isNaN(humidity) || Double.isNaN(windspeed) || Double.isNaN(nextTemp)) {
+            return;
+        }
+        if (size == target.length) {
+            int capacity = size * 2;
+            temp = Arrays.copyOf(temp, capacity);
+            nextHumidity = Arrays.copyOf(nextHumidity, capacity);
+            nextWindspeed = Arrays.copyOf(nextWindspeed, capacity);
+            target = Arrays.copyOf(target, capacity);
+        }
+        temp[size] = todayTemp;
+        nextHumidity[size] = humidity;
+        nextWindspeed[size] = windspeed;
+        target[size] = nextTemp;
+        size++;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long lastDay() {
+        return lastDay;
+    }
+
+    /** Feature-major copy of the feature columns, trimmed to size. */
+    synchronized double[][] features() {
+        return new double[][]{
+            Arrays.copyOf(temp, size), Arrays.copyOf(nextHumidity, size), Arrays.copyOf(nextWindspeed, size)};
+    }
+
+    synchronized double[] target() {
+        return Arrays.copyOf(target, size);
+    }
+}
@@ -1,355 +1,546 @@
 package org.example;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.awt.Dimension;
+import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.logging.Level;
-import java.util.logging.FileHandler;
-import java.util.logging.SimpleFormatter;
 
-public class WeatherApp {
+public class WeatherApp implements PredictionServer.Backend {
     private static final Logger LOGGER = Logger.getLogger(WeatherApp.class.getName());
     private static final String API_KEY = "E68W3EG8ST7LR84CX3K9JGB2M";
     private static final String MYSQL_HOST = "localhost";
     private static final String MYSQL_USER = "root";
     private static final String MYSQL_PASSWORD = "Hellokitty69";
     private static final String MYSQL_DATABASE = "weather_db";
-
-    private WeatherGUI gui;
-    private static final String[] SUPPORTED_CITIES = {"Chennai", "Bangalore", "Delhi"};
-    private JSONObject[] cityWeatherData;
-    private JSONObject[] tomorrowWeatherData;
-    private Connection dbConnection;
-    private String currentStoredCity = null; // Track which city's data is currently stored
-    private int currentCityIndex = 0; // Track current city index
+    private static final Path HISTORY_DIR = Paths.get(
+        System.getProperty("weatherapp.historyDir", "java/src/main/java/org/example"));
+    private static final WeatherFetcher FETCHER = new WeatherFetcher(API_KEY,
+        new ResponseCache(256, Paths.get(System.getProperty("weatherapp.cacheDir", "cache"))),
+        WeatherFetcher.DEFAULT_TTL);
+    private static final Path MODEL_DIR = Paths.get(System.getProperty("weatherapp.modelDir", "models"));
+    private static final Path OBSERVATION_DIR = Paths.get(System.getProperty("weatherapp.observationDir", "observations"));
+    // New Visual Crossing exports dropped here are picked up by --backfill
+    private static final Path INBOX_DIR = Paths.get(System.getProperty("weatherapp.inboxDir", "inbox"));
+
+    private static final Duration REFRESH_INTERVAL =
+        Duration.ofMinutes(Long.getLong("weatherapp.refreshMinutes", WeatherFetcher.DEFAULT_TTL.toMinutes()));
+
+    private volatile WeatherGUI gui;
+    // -Dweatherapp.cities=Chennai,Mumbai,... overrides the cities found in the history directory
+    private final CityRegistry cities = CityRegistry.load(System.getProperty("weatherapp.cities"), HISTORY_DIR);
+    // Latest complete fetch per city; each entry is replaced whole, so readers never see a mix
+    private final Map<String, WeatherFetcher.CityWeather> snapshots = new ConcurrentHashMap<>();
+    // Cities whose snapshot is still the one seeded from the disk cache at startup
+    private final Set<String> seeded = ConcurrentHashMap.newKeySet();
+    // Completed once the database is connected and its tables checked, which the GUI does not wait for
+    private final CompletableFuture<WeatherStore> store = new CompletableFuture<>();
+    private RefreshScheduler refresher;
+    private final ObservationStore observations = new ObservationStore(OBSERVATION_DIR);
+    private final TemperaturePredictor predictor =
+        new TemperaturePredictor(HISTORY_DIR, new ModelStore(MODEL_DIR), observations);
+    private final Forecaster forecaster = new Forecaster(HISTORY_DIR, new ModelStore(MODEL_DIR), observations);
+    // Learns each day as it is recorded; answers while the forest is still loading or training
+    private final OnlinePredictor online = new OnlinePredictor(HISTORY_DIR, observations);
+
+    // Held here so the package logger, and with it the handler, is never collected
+    private static final Logger APP_LOGGER = Logger.getLogger("org.example");
 
     static {
         try {
-            FileHandler fh = new FileHandler("weatherapp.log", true);
-            fh.setFormatter(new SimpleFormatter());
-            LOGGER.addHandler(fh);
-            LOGGER.setLevel(Level.ALL);
+            // -Dweatherapp.logFile, -Dweatherapp.logLevel=FINE etc.; files rotate at 10 MB or daily, 5 kept
+            AsyncLogHandler handler = new AsyncLogHandler(
+                Paths.get(System.getProperty("weatherapp.logFile", "weatherapp.log")),
+                10L * 1024 * 1024, 5, Duration.ofDays(1), 8192);
+            APP_LOGGER.addHandler(handler);
+            // Otherwise every record is also formatted and written to the console on the calling thread
+            APP_LOGGER.setUseParentHandlers(false);
+            APP_LOGGER.setLevel(Level.parse(System.getProperty("weatherapp.logLevel", "INFO")));
+            Runtime.getRuntime().addShutdownHook(new Thread(handler::close, "log-shutdown"));
         } catch (IOException e) {
             System.err.println("Could not set up logging: " + e.getMessage());
         }
     }
 
     public WeatherApp() {
-        try {
-            LOGGER.info("Initializing WeatherApp...");
-            this.cityWeatherData = new JSONObject[SUPPORTED_CITIES.length];
-            this.tomorrowWeatherData = new JSONObject[SUPPORTED_CITIES.length];
-
-            initializeDatabase();
-            createTables();
-
-            // Clear any existing data from previous sessions
-            clearAllWeatherData();
-
-            // Initialize with the first city
-            fetchWeatherDataForCity(0);
-            initializeGUI();
-
-            LOGGER.info("WeatherApp initialized successfully");
-        } catch (RuntimeException e) {
-            LOGGER.severe("Failed to initialize WeatherApp: " + e.getMessage());
-            e.printStackTrace();
-            System.exit(1);
-        }
+        this(true);
     }
 
-    private void initializeDatabase() {
-        try {
-            LOGGER.info("Initializing database connection...");
-            Connection tempConnection = DriverManager.getConnection(
-                "jdbc:mysql://" + MYSQL_HOST, MYSQL_USER, MYSQL_PASSWORD);
-
-            try (Statement stmt = tempConnection.createStatement()) {
-                stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + MYSQL_DATABASE);
-                LOGGER.info("Database created or verified: " + MYSQL_DATABASE);
+    /**
+     * Headless startup connects the store and fetches every city before returning, and throws if either
+     * fails. With the GUI, the window opens at once with whatever is cached on disk while the store,
+     * fetches and models come up in the background; failures there are reported in the window.
+     *
+     * @param withGui false for headless use
+     */
+    public WeatherApp(boolean withGui) {
+        LOGGER.log(Level.INFO, "Initializing WeatherApp{0}...", withGui ? "" : " (headless)");
+        // Load persisted models (or train them if the history changed) off the startup path. The online
+        // models come first: they are quick to build and answer until the forests are ready.
+        Thread warmUp = new Thread(() -> {
+            cities.names().forEach(this::prepareOnlineModel);
+            new BatchTrainer(predictor, forecaster).trainAll(cities.names(), false);
+        }, "model-warmup");
+        warmUp.setDaemon(true);
+        warmUp.start();
+
+        if (!withGui) {
+            try {
+                openStore();
+                startRefresher(prefetchAllCities());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to initialize WeatherApp: {0}", e.getMessage());
+                throw e;
             }
-            tempConnection.close();
-
-            String url = "jdbc:mysql://" + MYSQL_HOST + "/" + MYSQL_DATABASE
-                      + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
-            this.dbConnection = DriverManager.getConnection(url, MYSQL_USER, MYSQL_PASSWORD);
+            LOGGER.info("WeatherApp initialized successfully");
+            return;
+        }
 
-            if (!this.dbConnection.isValid(5)) {
-                throw new SQLException("Failed to establish valid database connection");
+        long start = System.nanoTime();
+        seedFromCache(cities.get(0));
+        gui = new WeatherGUI(this);
+        LOGGER.log(Level.INFO, "Window shown {0,number,#} ms after startup began",
+            (System.nanoTime() - start) / 1_000_000);
+
+        CompletableFuture.runAsync(this::openStore, WeatherApp::startupThread)
+            .exceptionally(e -> {
+                LOGGER.log(Level.SEVERE, "Weather store unavailable: {0}", e.getCause().getMessage());
+                gui.showError("Database unavailable; predictions will not be saved.");
+                return null;
+            });
+        CompletableFuture.runAsync(() -> {
+            cities.names().forEach(this::seedFromCache);
+            startRefresher(prefetchAllCities());
+            if (getWeatherData(0) == null) {
+                gui.showError("Could not fetch weather data; retrying in the background.");
             }
+            LOGGER.info("WeatherApp initialized successfully");
+        }, WeatherApp::startupThread).exceptionally(e -> {
+            LOGGER.log(Level.SEVERE, "Failed to initialize WeatherApp: {0}", e.getCause().getMessage());
+            gui.showError("Could not start fetching weather data: " + e.getCause().getMessage());
+            return null;
+        });
+    }
 
-            LOGGER.info("Successfully connected to database: " + MYSQL_DATABASE);
-        } catch (SQLException e) {
-            String errorMsg = "Critical database initialization error: " + e.getMessage();
-            LOGGER.severe(errorMsg);
-            throw new RuntimeException(errorMsg, e);
-        }
+    private static void startupThread(Runnable stage) {
+        Thread thread = new Thread(stage, "startup");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    private void createTables() {
+    private void openStore() {
         try {
-            LOGGER.info("Checking and creating necessary tables...");
-            try (Statement stmt = dbConnection.createStatement()) {
-                // Create weather_data table
-                String createWeatherTable =
-                    "CREATE TABLE IF NOT EXISTS weather_data (" +
-                    "    id INT AUTO_INCREMENT PRIMARY KEY," +
-                    "    city VARCHAR(50) NOT NULL," +
-                    "    temperature DOUBLE NOT NULL," +
-                    "    humidity DOUBLE NOT NULL," +
-                    "    wind_speed DOUBLE NOT NULL," +
-                    "    date DATE NOT NULL," +
-                    "    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                    "    INDEX idx_city_date (city, date)" +
-                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
-                stmt.executeUpdate(createWeatherTable);
-
-                // Create predictions table with created_at column
-                String createPredictionsTable =
-                    "CREATE TABLE IF NOT EXISTS predictions (" +
-                    "    id INT AUTO_INCREMENT PRIMARY KEY," +
-                    "    city VARCHAR(50) NOT NULL," +
-                    "    preds DOUBLE NOT NULL," +
-                    "    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                    "    INDEX idx_city_created (city, created_at)" +
-                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
-                stmt.executeUpdate(createPredictionsTable);
-            }
-        } catch (SQLException e) {
-            String errorMsg = "Critical error creating tables: " + e.getMessage();
-            LOGGER.severe(errorMsg);
-            throw new RuntimeException(errorMsg, e);
+            WeatherStore opened = createStore();
+            opened.createTables();
+            store.complete(opened);
+        } catch (RuntimeException e) {
+            store.completeExceptionally(e);
+            throw e;
         }
     }
 
-    private void clearAllWeatherData() {
-        try {
-            LOGGER.info("Clearing all weather data from previous sessions...");
-            try (Statement stmt = dbConnection.createStatement()) {
-                stmt.executeUpdate("DELETE FROM weather_data");
-                stmt.executeUpdate("DELETE FROM predictions");
+    // Shows the newest response cached on disk, however old, marked stale until the first fetch replaces it
+    private void seedFromCache(String city) {
+        WeatherFetcher.CityWeather cached = FETCHER.cachedCity(city);
+        if (cached == null) {
+            return;
+        }
+        seeded.add(city);
+        if (snapshots.putIfAbsent(city, cached) != null) {
+            seeded.remove(city);
+        } else {
+            WeatherGUI view = gui;
+            if (view != null) {
+                view.weatherUpdated(city);
             }
-            LOGGER.info("Successfully cleared all weather data");
-        } catch (SQLException e) {
-            LOGGER.severe("Error clearing weather data: " + e.getMessage());
-            throw new RuntimeException("Failed to clear weather data", e);
         }
     }
 
-    public void fetchWeatherDataForCity(int cityIndex) {
-        this.currentCityIndex = cityIndex;
-        String city = SUPPORTED_CITIES[cityIndex];
-        LOGGER.info("Fetching weather data for " + city);
+    // -Dweatherapp.store=memory runs without a MySQL server
+    private static WeatherStore createStore() {
+        String kind = System.getProperty("weatherapp.store", "mysql");
+        switch (kind) {
+            case "mysql":
+                return new MySqlWeatherStore(MYSQL_HOST, MYSQL_DATABASE, MYSQL_USER, MYSQL_PASSWORD);
+            case "memory":
+                LOGGER.info("Using embedded in-memory weather store");
+                return new InMemoryWeatherStore();
+            default:
+                throw new IllegalArgumentException("Unknown weatherapp.store: " + kind);
+        }
+    }
 
-        try {
-            // First, clear existing data if we have stored data for a different city
-            if (currentStoredCity != null && !currentStoredCity.equals(city)) {
-                clearCityData(currentStoredCity);
+    // Returns the cities that could not be fetched
+    private List<String> prefetchAllCities() {
+        LOGGER.info("Fetching weather data for all cities...");
+        Map<String, WeatherFetcher.CityWeather> results = FETCHER.fetchAll(cities.names());
+        List<String> failed = new ArrayList<>();
+        results.forEach((city, weather) -> {
+            if (!publish(weather)) {
+                failed.add(city);
             }
+        });
+        return failed;
+    }
 
-            // Fetch today's weather for display
-            JSONObject todayData = fetchWeatherData(city, LocalDate.now());
-            if (todayData != null && todayData.has("currentConditions")) {
-                cityWeatherData[cityIndex] = todayData.getJSONObject("currentConditions");
-                cityWeatherData[cityIndex].put("address", todayData.getString("address"));
-                cityWeatherData[cityIndex].put("timezone", todayData.getString("timezone"));
-            }
+    // Cities whose prefetch failed start on the backoff schedule rather than a full interval away
+    private void startRefresher(List<String> failed) {
+        refresher = new RefreshScheduler(FETCHER::fetchCityAsync, this::publish,
+            REFRESH_INTERVAL, Duration.ofSeconds(30), Duration.ofMinutes(30));
+        failed.forEach(refresher::recordFailure);
+        refresher.start(cities.names());
+    }
+
+    /**
+     * Fetches a city on demand, for when the background refresh has not produced a snapshot yet.
+     */
+    public void fetchWeatherDataForCity(int cityIndex) {
+        String city = cities.get(cityIndex);
+        LOGGER.log(Level.INFO, "Fetching weather data for {0}", city);
+        if (!publish(FETCHER.fetchCityAsync(city).join())) {
+            throw new RuntimeException("Failed to fetch weather data for " + city);
+        }
+    }
 
-            // Fetch tomorrow's weather data
-            JSONObject tomorrowData = fetchWeatherData(city, LocalDate.now().plusDays(1));
-            if (tomorrowData != null && tomorrowData.has("days")) {
-                JSONArray days = tomorrowData.getJSONArray("days");
-                if (days.length() > 0) {
-                    tomorrowWeatherData[cityIndex] = days.getJSONObject(0);
-                    storeTomorrowWeatherData(city, tomorrowWeatherData[cityIndex]);
-                    currentStoredCity = city;
+    // Swaps in a new snapshot for the city, records the observation and stores tomorrow's row
+    private boolean publish(WeatherFetcher.CityWeather weather) {
+        if (weather == null || weather.current() == null) {
+            return false;
+        }
+        String city = weather.city();
+        snapshots.put(city, weather);
+        seeded.remove(city);
+        recordObservation(weather);
+
+        if (weather.tomorrow() != null) {
+            // Written now if the store is open, otherwise once it opens; skipped if it never does
+            store.thenAccept(opened -> {
+                try {
+                    storeTomorrowWeatherData(opened, weather);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Failed to store weather data for {0}: {1}", new Object[]{city, e.getMessage()});
                 }
-            }
+            });
+        }
+        LOGGER.log(Level.INFO, "Successfully updated weather data for {0}", city);
 
-            LOGGER.info("Successfully updated weather data for " + city);
-        } catch (Exception e) {
-            LOGGER.severe("Failed to fetch/store weather data for " + city + ": " + e.getMessage());
-            throw new RuntimeException("Failed to fetch/store weather data", e);
+        WeatherGUI view = gui;
+        if (view != null) {
+            view.weatherUpdated(city);
         }
+        return true;
     }
 
-    private void clearCityData(String city) {
-        LOGGER.info("Clearing data for city: " + city);
+    // Upserts today's day summary; later fetches the same day overwrite it until the day is complete
+    private void recordObservation(WeatherFetcher.CityWeather weather) {
+        if (weather.days().isEmpty() || weather.days().get(0).date() == null) {
+            return;
+        }
+        WeatherTimeline.Day today = weather.days().get(0);
+        double[] values = today.observationValues();
         try {
-            String deleteWeatherQuery = "DELETE FROM weather_data WHERE city = ?";
-            String deletePredictionsQuery = "DELETE FROM predictions WHERE city = ?";
-
-            dbConnection.setAutoCommit(false);
-            try {
-                // Delete from weather_data
-                try (PreparedStatement stmt = dbConnection.prepareStatement(deleteWeatherQuery)) {
-                    stmt.setString(1, city);
-                    stmt.executeUpdate();
-                }
+            observations.upsert(weather.city(), new Observation(today.date(), values));
+            online.observe(weather.city(), today.date(), values);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to record observation for {0}: {1}",
+                new Object[]{weather.city(), e.getMessage()});
+        }
+    }
 
-                // Delete from predictions
-                try (PreparedStatement stmt = dbConnection.prepareStatement(deletePredictionsQuery)) {
-                    stmt.setString(1, city);
-                    stmt.executeUpdate();
-                }
+    private void prepareOnlineModel(String city) {
+        try {
+            online.prepare(city);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to build the online model for {0}: {1}", new Object[]{city, e.getMessage()});
+        }
+    }
 
-                dbConnection.commit();
-                LOGGER.info("Successfully cleared data for " + city);
-            } catch (SQLException e) {
-                dbConnection.rollback();
-                throw e;
-            }
-        } catch (SQLException e) {
-            LOGGER.severe("Error clearing data for " + city + ": " + e.getMessage());
-            throw new RuntimeException("Failed to clear city data", e);
-        } finally {
-            try {
-                dbConnection.setAutoCommit(true);
-            } catch (SQLException e) {
-                LOGGER.warning("Failed to reset auto-commit: " + e.getMessage());
-            }
+    private void storeTomorrowWeatherData(WeatherStore target, WeatherFetcher.CityWeather weather) {
+        // Use today's temperature with tomorrow's humidity and wind speed
+        WeatherTimeline.Day tomorrow = weather.tomorrow();
+        // The parser leaves missing fields NaN, which the NOT NULL columns cannot hold
+        if (Double.isNaN(weather.current().temp()) || Double.isNaN(tomorrow.humidity())
+            || Double.isNaN(tomorrow.windspeed())) {
+            LOGGER.log(Level.WARNING, "Not storing weather data for {0}: response is missing a value", weather.city());
+            return;
         }
+        target.storeWeather(new WeatherStore.WeatherRow(weather.city(),
+            weather.current().temp(), tomorrow.humidity(), tomorrow.windspeed(),
+            LocalDate.now().plusDays(1)));
+        LOGGER.log(Level.INFO, "Successfully stored hybrid weather data for {0}", weather.city());
     }
 
-    private void storeTomorrowWeatherData(String city, JSONObject weatherData) {
-        String insertQuery = "INSERT INTO weather_data (city, temperature, humidity, wind_speed, date) VALUES (?, ?, ?, ?, ?)";
+    public static WeatherTimeline fetchWeatherData(String location, LocalDate date) {
+        return FETCHER.fetchAsync(location, date).join();
+    }
+
+    /** Tomorrow's temperature (0.0 if it could not be predicted) and the multi-day forecast. */
+    public record PredictionResult(double predictedTemp, Forecaster.Forecast forecast) {
+    }
 
+    /**
+     * Predicts from memory and returns at once; the rows are written to the store once it is open, and a
+     * store that is still connecting or failed to open only means they are not saved.
+     */
+    public PredictionResult runPredictionForCity(String city) {
+        PredictionResult result;
         try {
-            // Verify we have current weather data
-            if (cityWeatherData[currentCityIndex] == null) {
-                throw new RuntimeException("Current weather data not available");
+            LOGGER.log(Level.INFO, "Preparing prediction model for {0}", city);
+            if (predictor.refresh(city)) {
+                LOGGER.log(Level.INFO, "Updated prediction model for {0} with new observations", city);
             }
+            predictor.modelFor(city);
+            LOGGER.log(Level.INFO, "Temperature prediction model ready for {0}", city);
+            result = new PredictionResult(getPredictionForCity(city), forecastOrEmpty(city));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error training prediction model for {0}: {1}", new Object[]{city, e.getMessage()});
+            throw new RuntimeException("Failed to run prediction", e);
+        }
 
-            // Get today's temperature from current conditions
-            double todayTemp = cityWeatherData[currentCityIndex].getDouble("temp");
-
-            try (PreparedStatement insertStmt = dbConnection.prepareStatement(insertQuery)) {
-                insertStmt.setString(1, city);
-                // Use today's temperature instead of tomorrow's
-                insertStmt.setDouble(2, todayTemp);
-                // Use tomorrow's humidity and wind speed
-                insertStmt.setDouble(3, weatherData.getDouble("humidity"));
-                insertStmt.setDouble(4, weatherData.getDouble("windspeed"));
-                insertStmt.setString(5, LocalDate.now().plusDays(1).toString());
-                insertStmt.executeUpdate();
-            }
-            LOGGER.info("Successfully stored hybrid weather data for " + city);
-        } catch (SQLException e) {
-            LOGGER.severe("Error storing weather data for " + city + ": " + e.getMessage());
-            throw new RuntimeException("Failed to store weather data", e);
+        // Keep the predictions table populated for other consumers; the GUI reads from memory
+        double prediction = result.predictedTemp();
+        List<WeatherStore.PredictionRow> rows = new ArrayList<>();
+        for (Forecaster.ForecastDay day : result.forecast().days()) {
+            // Tomorrow keeps the next-day model's value so readPrediction stays unchanged
+            double temp = day.horizon() == 1 && prediction != 0.0 ? prediction : day.temp();
+            rows.add(new WeatherStore.PredictionRow(city, temp, day.tempMax(), day.tempMin(),
+                day.date(), day.horizon()));
         }
+        if (rows.stream().noneMatch(row -> row.horizon() == 1) && prediction != 0.0) {
+            rows.add(new WeatherStore.PredictionRow(city, prediction));
+        }
+        store.thenAccept(opened -> {
+            try {
+                opened.store(List.of(), rows);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to store predictions for {0}: {1}", new Object[]{city, e.getMessage()});
+            }
+        });
+        return result;
     }
 
-    public static JSONObject fetchWeatherData(String location, LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ISO_DATE);
-        String urlString = String.format(
-            "https://weather.visualcrossing.com/VisualCrossingWebServices/rest/services/timeline/%s/%s?unitGroup=metric&key=%s&contentType=json",
-            location, dateStr, API_KEY);
-
+    // A forecast that cannot be trained must not cost the next-day prediction
+    private Forecaster.Forecast forecastOrEmpty(String city) {
         try {
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-
-            if (conn.getResponseCode() == 200) {
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-                    StringBuilder content = new StringBuilder();
-                    String inputLine;
-                    while ((inputLine = in.readLine()) != null) {
-                        content.append(inputLine);
-                    }
-                    return new JSONObject(content.toString());
-                }
-            } else {
-                LOGGER.warning("Failed to fetch weather data. Response code: " + conn.getResponseCode());
-            }
-        } catch (Exception e) {
-            LOGGER.severe("Error fetching weather data: " + e.getMessage());
+            return getForecastForCity(city);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Failed to forecast " + city + "; showing the next-day prediction only");
+            return new Forecaster.Forecast(cities.canonical(city), List.of());
         }
-        return null;
     }
 
-    public void runPredictionForCity(String city) {
-        try {
-            String pythonPath = "C:\\Users\\shshv\\AppData\\Local\\Programs\\Python\\Python313\\python.exe";
-            String scriptPath = "C:\\Users\\shshv\\IdeaProjects\\multi-task\\python1\\" +
-                              city.toLowerCase() + ".py";
+    public double getPredictionForCity(String city) {
+        OptionalDouble prediction = predict(city);
+        if (prediction.isEmpty()) {
+            LOGGER.log(Level.WARNING, "No weather data available to predict for {0}", city);
+            return 0.0;
+        }
+        return prediction.getAsDouble();
+    }
 
-            ProcessBuilder processBuilder = new ProcessBuilder(pythonPath, scriptPath);
-            processBuilder.inheritIO();
+    /**
+     * The multi-day forecast from the city's latest snapshot; empty if it has not been fetched yet or its
+     * models are still loading or training, which this never waits for.
+     */
+    @Override
+    public Forecaster.Forecast forecast(String city) {
+        String name = cities.canonical(city);
+        if (!forecaster.isTrained(name)) {
+            return new Forecaster.Forecast(name, List.of());
+        }
+        return getForecastForCity(name);
+    }
 
-            LOGGER.info("Starting prediction process for " + city);
-            Process process = processBuilder.start();
+    /**
+     * The multi-day forecast from the city's latest snapshot, loading or training its models first if
+     * needed; empty if it has not been fetched yet.
+     */
+    public Forecaster.Forecast getForecastForCity(String city) {
+        String name = cities.canonical(city);
+        WeatherFetcher.CityWeather weather = snapshots.get(name);
+        return weather == null ? new Forecaster.Forecast(name, List.of()) : forecaster.forecast(weather);
+    }
 
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                LOGGER.info("Temperature prediction completed for " + city);
-            } else {
-                LOGGER.warning("Prediction failed for " + city + ". Exit code: " + exitCode);
-            }
-        } catch (IOException | InterruptedException e) {
-            LOGGER.severe("Error running prediction script for " + city + ": " + e.getMessage());
-            throw new RuntimeException("Failed to run prediction", e);
-        }
+    @Override
+    public WeatherTimeline.Current currentWeather(String city) {
+        WeatherFetcher.CityWeather weather = snapshots.get(cities.canonical(city));
+        return weather == null ? null : weather.current();
     }
 
-    public double getPredictionForCity(String city) {
-        String selectQuery = "SELECT preds FROM predictions WHERE city = ?";
-        try (PreparedStatement stmt = dbConnection.prepareStatement(selectQuery)) {
-            stmt.setString(1, city);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("preds");
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.severe("Error retrieving prediction for " + city + ": " + e.getMessage());
-            throw new RuntimeException("Failed to retrieve prediction", e);
+    // Reads only the in-memory snapshot and models, and never loads or trains one: a city whose forest is
+    // still training is answered by the online model if that has been built, and otherwise not at all
+    @Override
+    public OptionalDouble predict(String city) {
+        String name = cities.canonical(city);
+        WeatherFetcher.CityWeather weather = snapshots.get(name);
+        if (weather == null || weather.tomorrow() == null) {
+            return OptionalDouble.empty();
         }
-        return 0.0;
+        WeatherTimeline.Day tomorrow = weather.tomorrow();
+        if (!predictor.isTrained(name) || weather.current() == null) {
+            return online.isLoaded(name)
+                ? online.predict(name, tomorrow.humidity(), tomorrow.windspeed())
+                : OptionalDouble.empty();
+        }
+        return OptionalDouble.of(predictor.predict(name,
+            weather.current().temp(), tomorrow.humidity(), tomorrow.windspeed()));
     }
 
-    private void initializeGUI() {
-        if (cityWeatherData[0] != null && dbConnection != null) {
-            gui = new WeatherGUI(this);
-            LOGGER.info("GUI initialized successfully");
-        } else {
-            String errorMsg = "Failed to initialize GUI: Missing weather data or database connection.";
-            LOGGER.severe(errorMsg);
-            throw new RuntimeException(errorMsg);
-        }
+    public List<String> getSupportedCities() {
+        return cities.names();
     }
 
-    public String[] getSupportedCities() {
-        return SUPPORTED_CITIES;
+    /**
+     * Current conditions from the latest snapshot, or null if the city has not been fetched yet.
+     */
+    public WeatherTimeline.Current getWeatherData(int cityIndex) {
+        WeatherFetcher.CityWeather weather = snapshots.get(cities.get(cityIndex));
+        return weather == null ? null : weather.current();
     }
 
-    public JSONObject getWeatherData(int cityIndex) {
-        return cityWeatherData[cityIndex];
+    /**
+     * True while the city's snapshot is still the cached one shown at startup, from an earlier run.
+     */
+    public boolean isStale(int cityIndex) {
+        return seeded.contains(cities.get(cityIndex));
     }
 
+    /**
+     * Starts the GUI, or with {@code --server [port]} the headless JSON API, or with
+     * {@code --train-all [--force]} prepares every city's model and exits, or with
+     * {@code --backtest [retrainDays]} prints walk-forward accuracy of each feature set and exits, or with
+     * {@code --warmup} runs the startup path offline and exits, for recording an AppCDS archive, or with
+     * {@code --backfill} loads the history CSVs and the inbox into the observations table and exits.
+     */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            runServer(port);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--train-all")) {
+            boolean force = args.length > 1 && args[1].equals("--force");
+            System.exit(trainAll(force) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--backtest")) {
+            int retrainDays = args.length > 1 ? Integer.parseInt(args[1]) : Backtester.DEFAULT_RETRAIN_DAYS;
+            System.exit(backtest(retrainDays) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--backfill")) {
+            System.exit(backfill() ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--warmup")) {
+            warmUp();
+            return;
+        }
         try {
             new WeatherApp();
         } catch (Exception e) {
-            LOGGER.severe("Application failed to start: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Application failed to start: {0}", e.getMessage());
             e.printStackTrace();
             System.exit(1);
         }
     }
-}
\ No newline at end of file
+
+    private static void runServer(int port) {
+        WeatherApp app = new WeatherApp(false);
+        int threads = Integer.getInteger("weatherapp.serverThreads", Runtime.getRuntime().availableProcessors() * 2);
+        PredictionServer server = new PredictionServer(port, threads, app);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "server-shutdown"));
+        server.start();
+        // Handler threads are daemons; keep the JVM alive until it is stopped
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean trainAll(boolean force) {
+        CityRegistry registry = CityRegistry.load(System.getProperty("weatherapp.cities"), HISTORY_DIR);
+        ModelStore models = new ModelStore(MODEL_DIR);
+        ObservationStore history = new ObservationStore(OBSERVATION_DIR);
+        BatchTrainer trainer = new BatchTrainer(new TemperaturePredictor(HISTORY_DIR, models, history),
+            new Forecaster(HISTORY_DIR, models, history));
+        BatchTrainer.Summary summary = trainer.trainAll(registry.names(), force);
+        for (BatchTrainer.Result result : summary.results()) {
+            System.out.printf("%-20s %8d ms  %s%n", result.city(), result.millis(),
+                result.succeeded() ? "ok" : "FAILED: " + result.error().getMessage());
+        }
+        System.out.printf("%d cities in %d ms (%d ms summed over cities), %d failed%n",
+            summary.results().size(), summary.wallMillis(), summary.cityMillis(), summary.failures());
+        return summary.failures() == 0;
+    }
+
+    private static boolean backfill() {
+        try (WeatherStore target = createStore()) {
+            target.createTables();
+            Path checkpoint = Paths.get(System.getProperty("weatherapp.backfillCheckpoint", "backfill.checkpoint"));
+            Backfill backfill = new Backfill(target, checkpoint,
+                Integer.getInteger("weatherapp.backfillBatchRows", Backfill.DEFAULT_BATCH_ROWS));
+            Backfill.Summary summary = backfill.run(List.of(HISTORY_DIR, INBOX_DIR));
+            System.out.printf("%d files (%d already loaded, %d failed), %d rows in %d ms, %.0f rows/s%n",
+                summary.files(), summary.skipped(), summary.failed(), summary.rows(), summary.millis(),
+                summary.rowsPerSecond());
+            return summary.failed() == 0;
+        }
+    }
+
+    // Loads the classes a GUI start needs without a network, database or visible window
+    private static void warmUp() {
+        CityRegistry registry = CityRegistry.load(System.getProperty("weatherapp.cities"), HISTORY_DIR);
+        String city = registry.names().get(0);
+        FETCHER.cachedCity(city);
+        ModelStore models = new ModelStore(MODEL_DIR);
+        ObservationStore history = new ObservationStore(OBSERVATION_DIR);
+        new BatchTrainer(new TemperaturePredictor(HISTORY_DIR, models, history),
+            new Forecaster(HISTORY_DIR, models, history)).trainAll(List.of(city), false);
+        try (WeatherStore store = new InMemoryWeatherStore()) {
+            store.createTables();
+        }
+        if (!GraphicsEnvironment.isHeadless()) {
+            Frame frame = new Frame();
+            frame.addNotify();
+            frame.dispose();
+        }
+        BackgroundCache backgrounds = new BackgroundCache(new Dimension(800, 600));
+        backgrounds.preload();
+        backgrounds.get(BackgroundCache.Sky.CLEAR, 800, 600, null);
+        LOGGER.info("Warm-up finished");
+    }
+
+    private static boolean backtest(int retrainDays) {
+        CityRegistry registry = CityRegistry.load(System.getProperty("weatherapp.cities"), HISTORY_DIR);
+        Backtester backtester = new Backtester(Backtester.DEFAULT_INITIAL_DAYS, retrainDays, RandomForestRegressor::new);
+        System.out.printf("%-15s %-7s %-9s %6s %7s %7s %5s %9s %9s %9s %9s %9s%n", "city", "model", "features",
+            "days", "MAE", "RMSE", "fits", "train ms", "pred us", "p99 us", "model KB", "heap MB");
+        boolean ok = true;
+        for (String city : registry.names()) {
+            try {
+                for (Backtester.Report r : backtester.run(HISTORY_DIR, city)) {
+                    System.out.printf("%-15s %-7s %-9s %6d %7.3f %7.3f %5d %9d %9.1f %9.1f %9d %9d%n", r.city(),
+                        r.model(), r.features(), r.predictions(), r.mae(), r.rmse(), r.fits(), r.trainMillis(),
+                        r.meanPredictMicros(), r.p99PredictMicros(), r.modelBytes() / 1024,
+                        r.peakHeapBytes() / (1024 * 1024));
+                }
+            } catch (RuntimeException e) {
+                System.out.printf("%-15s FAILED: %s%n", city, e.getMessage());
+                ok = false;
+            }
+        }
+        return ok;
+    }
+}
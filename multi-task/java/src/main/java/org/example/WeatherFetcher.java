@@ -0,0 +1,279 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking Visual Crossing client. One shared HTTP/2 client keeps connections alive, each city
+ * costs one timeline request covering today and the forecast horizon, and all cities are requested
+ * together so a refresh costs a single round trip.
+ */
+public class WeatherFetcher {
+    private static final Logger LOGGER = Logger.getLogger(WeatherFetcher.class.getName());
+    static final String BASE_URL = "https://weather.visualcrossing.com/VisualCrossingWebServices/rest/services/timeline";
+    private static final String TIMELINE_URL = "%s/%s/%s?unitGroup=metric&key=%s&contentType=json";
+    private static final String TIMELINE_RANGE_URL =
+        "%s/%s/%s/%s?unitGroup=metric&include=current,days&key=%s&contentType=json";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    /** Days fetched per city: today plus this many following days. */
+    public static final int DEFAULT_HORIZON_DAYS = 7;
+
+    /**
+     * Today's current conditions (with address and timezone) and the day summaries starting today.
+     */
+    public record CityWeather(String city, WeatherTimeline.Current current, List<WeatherTimeline.Day> days) {
+        public CityWeather {
+            days = days == null ? List.of() : List.copyOf(days);
+        }
+
+        /** Tomorrow's day summary, or null if the response did not cover it. */
+        public WeatherTimeline.Day tomorrow() {
+            return days.size() > 1 ? days.get(1) : null;
+        }
+    }
+
+    /** Upper bound on simultaneous requests when fetching many cities at once. */
+    public static final int MAX_CONCURRENT_REQUESTS = 16;
+
+    /** How long a response is served from cache before it is revalidated. */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String apiKey;
+    private final ResponseCache cache;
+    private final long ttlMillis;
+    private final Map<String, Metrics.Timer> apiLatency = new ConcurrentHashMap<>();
+    private final Map<String, Metrics.Counter> apiErrors = new ConcurrentHashMap<>();
+
+    public WeatherFetcher(String apiKey) {
+        this(apiKey, null, DEFAULT_TTL);
+    }
+
+    /**
+     * @param cache response cache, or null to always hit the network
+     */
+    public WeatherFetcher(String apiKey, ResponseCache cache, Duration ttl) {
+        this(HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build(), BASE_URL, apiKey, cache, ttl);
+    }
+
+    /**
+     * @param baseUrl timeline endpoint without a trailing slash, to point the client at a stub server
+     */
+    WeatherFetcher(HttpClient client, String baseUrl, String apiKey, ResponseCache cache, Duration ttl) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.cache = cache;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Fetches the timeline for one date. Completes with null on HTTP or network errors.
+     */
+    public CompletableFuture<WeatherTimeline> fetchAsync(String location, LocalDate date) {
+        return send(location, String.format(TIMELINE_URL, baseUrl,
+            encode(location), date.format(DateTimeFormatter.ISO_DATE), apiKey));
+    }
+
+    /**
+     * Fetches current conditions plus every day in [start, end] with a single request.
+     */
+    public CompletableFuture<WeatherTimeline> fetchTimelineAsync(String location, LocalDate start, LocalDate end) {
+        return send(location, timelineRangeUrl(location, start, end));
+    }
+
+    /**
+     * The city's most recent cached current-and-days response, from any earlier day and however long
+     * expired, or null. Reads only the cache, so it is quick enough to show something before the first
+     * fetch completes.
+     */
+    public CityWeather cachedCity(String city) {
+        if (cache == null) {
+            return null;
+        }
+        // Range requests for the city, whatever their dates; the query string is the same for all of them
+        String prefix = cacheKey(baseUrl + "/" + encode(city) + "/");
+        String query = cacheKey(timelineRangeUrl(city, LocalDate.EPOCH, LocalDate.EPOCH));
+        String suffix = query.substring(query.indexOf('?'));
+        ResponseCache.Stored cached = cache.latest(key -> key.startsWith(prefix) && key.endsWith(suffix));
+        if (cached == null) {
+            return null;
+        }
+        try {
+            WeatherTimeline timeline = parse(cached.entry().body());
+            return timeline.current() == null ? null : new CityWeather(city, timeline.current(), timeline.days());
+        } catch (RuntimeException e) {
+            // Malformed JSON or dates: drop the entry so the next start does not trip over it again
+            LOGGER.log(Level.WARNING, "Dropping unreadable cached weather for {0}: {1}", new Object[]{city, e.getMessage()});
+            cache.invalidate(cached.key());
+            return null;
+        }
+    }
+
+    private String timelineRangeUrl(String location, LocalDate start, LocalDate end) {
+        return String.format(TIMELINE_RANGE_URL, baseUrl, encode(location),
+            start.format(DateTimeFormatter.ISO_DATE), end.format(DateTimeFormatter.ISO_DATE), apiKey);
+    }
+
+    // The API key is left out of the cache key so it never reaches the disk store
+    private String cacheKey(String url) {
+        return url.replace("&key=" + apiKey, "");
+    }
+
+    private CompletableFuture<WeatherTimeline> send(String location, String url) {
+        String trace = Trace.currentOrNew();
+        CompletableFuture<String> body;
+        if (cache == null) {
+            body = request(location, url, null, trace).thenApply(entry -> entry == null ? null : entry.body());
+        } else {
+            body = cache.get(cacheKey(url), stale -> request(location, url, stale, trace));
+        }
+        return body
+            .thenApply(content -> content == null ? null : parse(content))
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof ResponseCache.StaleResponseException) {
+                    // Callers keep the data they already have; a null result still counts as a failed refresh
+                    LOGGER.warning(() -> Trace.tag(trace, "Failed to refresh weather data for " + location
+                        + "; the last response has expired"));
+                } else {
+                    LOGGER.severe(() -> Trace.tag(trace, "Error fetching weather data for " + location + ": "
+                        + cause.getMessage()));
+                }
+                return null;
+            });
+    }
+
+    // Sends the request, revalidating with the stale entry's validators when present
+    private CompletableFuture<ResponseCache.Entry> request(String location, String url, ResponseCache.Entry stale,
+                                                           String trace) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(TIMEOUT)
+            .header("X-Request-Id", trace)
+            .GET();
+        if (stale != null && !stale.etag().isEmpty()) {
+            builder.header("If-None-Match", stale.etag());
+        }
+        if (stale != null && !stale.lastModified().isEmpty()) {
+            builder.header("If-Modified-Since", stale.lastModified());
+        }
+
+        Metrics.Timer latency = apiLatency.computeIfAbsent(location,
+            city -> Metrics.timer("weather_api_request_seconds", "Timeline API round trip", "city", city));
+        long start = System.nanoTime();
+        return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                latency.stop(start);
+                if (error != null || (response.statusCode() != 200 && response.statusCode() != 304)) {
+                    apiErrors.computeIfAbsent(location,
+                        city -> Metrics.counter("weather_api_errors_total", "Failed timeline API requests", "city", city))
+                        .increment();
+                }
+            })
+            .thenApply(response -> {
+                long expiresAt = (cache != null ? cache.now() : System.currentTimeMillis()) + ttlMillis;
+                if (response.statusCode() == 200) {
+                    return new ResponseCache.Entry(response.body(),
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null),
+                        expiresAt);
+                }
+                if (response.statusCode() == 304 && stale != null) {
+                    return stale.withExpiry(expiresAt);
+                }
+                LOGGER.warning(() -> Trace.tag(trace, "Failed to fetch weather data for " + location
+                    + ". Response code: " + response.statusCode()));
+                return null;
+            });
+    }
+
+    /**
+     * Fetches today's conditions and the default forecast horizon for a city in one request.
+     */
+    public CompletableFuture<CityWeather> fetchCityAsync(String city) {
+        return fetchCityAsync(city, DEFAULT_HORIZON_DAYS);
+    }
+
+    public CompletableFuture<CityWeather> fetchCityAsync(String city, int horizonDays) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("horizonDays must be at least 1: " + horizonDays);
+        }
+        LocalDate today = LocalDate.now();
+        return fetchTimelineAsync(city, today, today.plusDays(horizonDays))
+            .thenApply(timeline -> timeline == null
+                ? new CityWeather(city, null, null)
+                : new CityWeather(city, timeline.current(), timeline.days()));
+    }
+
+    /**
+     * Fetches every city in parallel, at most {@link #MAX_CONCURRENT_REQUESTS} at a time, and waits for
+     * all of them. Cities that failed map to a CityWeather with null parts rather than being dropped.
+     */
+    public Map<String, CityWeather> fetchAll(List<String> cities) {
+        Map<String, CompletableFuture<CityWeather>> pending = new LinkedHashMap<>();
+        for (String city : cities) {
+            pending.put(city, new CompletableFuture<>());
+        }
+        Iterator<Map.Entry<String, CompletableFuture<CityWeather>>> queue = pending.entrySet().iterator();
+        for (int i = 0; i < MAX_CONCURRENT_REQUESTS; i++) {
+            fetchNext(queue);
+        }
+        CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0])).join();
+
+        Map<String, CityWeather> results = new LinkedHashMap<>();
+        pending.forEach((city, future) -> results.put(city, future.join()));
+        return results;
+    }
+
+    // Each completed request starts the next queued city, keeping a fixed number in flight
+    private void fetchNext(Iterator<Map.Entry<String, CompletableFuture<CityWeather>>> queue) {
+        Map.Entry<String, CompletableFuture<CityWeather>> next;
+        synchronized (queue) {
+            if (!queue.hasNext()) {
+                return;
+            }
+            next = queue.next();
+        }
+        String city = next.getKey();
+        fetchCityAsync(city).whenComplete((weather, error) -> {
+            next.getValue().complete(error == null ? weather : new CityWeather(city, null, null));
+            fetchNext(queue);
+        });
+    }
+
+    private static WeatherTimeline parse(String body) {
+        try {
+            return TimelineParser.parse(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed timeline response", e);
+        }
+    }
+
+    private static String encode(String location) {
+        return URLEncoder.encode(location, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -1,24 +1,67 @@
 package org.example;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.File;
-import java.io.IOException;
-import org.json.JSONObject;
+import java.awt.image.BufferedImage;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class WeatherGUI extends Frame {
-    private Image backgroundImage;
-    private int currentCityIndex = 0;
-    private WeatherApp weatherApp;
-    private String[] cities;
-    private double predictedTemp = 0.0;
-    private boolean isPredictionLoading = false;
-    private boolean isWeatherUpdating = false;
+    private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font ARROW_FONT = new Font("Arial", Font.BOLD, 24);
+    private static final Font CITY_FONT = new Font("Arial", Font.BOLD, 32);
+    private static final Font TEMP_FONT = new Font("Arial", Font.BOLD, 64);
+    private static final Font DETAIL_FONT = new Font("Arial", Font.PLAIN, 18);
+    private static final Font STATUS_FONT = new Font("Arial", Font.BOLD, 20);
+    private static final Font PREDICTION_FONT = new Font("Arial", Font.BOLD, 22);
+    private static final Font WEEK_FONT = new Font("Arial", Font.PLAIN, 14);
+    private static final Color BUTTON_COLOR = new Color(100, 149, 237);
+    private static final Color ARROW_COLOR = new Color(100, 149, 237, 200);
+    private static final Color LABEL_BACKGROUND = new Color(255, 255, 255, 200);
+    private static final Color LABEL_TEXT = new Color(0, 0, 0, 230);
+
+    /**
+     * Everything paint() needs besides the weather itself. Replaced whole, never mutated, so a
+     * repaint always sees one consistent state and a stale worker result can be dropped by
+     * comparing against the state it started from.
+     */
+    private record ViewState(int cityIndex, boolean weatherUpdating, boolean predictionLoading,
+                             double predictedTemp, Forecaster.Forecast forecast) {
+        static ViewState showing(int cityIndex) {
+            return new ViewState(cityIndex, false, false, 0.0, null);
+        }
+    }
+
+    private final BackgroundCache backgrounds = new BackgroundCache(Toolkit.getDefaultToolkit().getScreenSize());
+    private volatile BackgroundCache.Sky sky = BackgroundCache.Sky.CLEAR;
+    // Painting state, touched only on the event dispatch thread
+    private final Map<Font, FontMetrics> fontMetrics = new HashMap<>();
+    private BufferedImage buffer;
+    private final WeatherApp weatherApp;
+    private final List<String> cities;
+    private final AtomicReference<ViewState> view = new AtomicReference<>(ViewState.showing(0));
+    // Clicks queue up here instead of each starting a thread; a full queue rejects the click
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(8), runnable -> {
+            Thread thread = new Thread(runnable, "gui-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
 
     public WeatherGUI(WeatherApp app) {
         this.weatherApp = app;
         this.cities = app.getSupportedCities();
+        workers.allowCoreThreadTimeOut(true);
 
         setSize(800, 600);
         setTitle("Weather Application");
@@ -34,13 +77,17 @@ public class WeatherGUI extends Frame {
         createButtons();
         updateDisplay();
         setVisible(true);
+        runInBackground(() -> {
+            backgrounds.preload();
+            return null;
+        }, ignored -> repaint(), ex -> repaint());
     }
 
     private void createButtons() {
         Button predictButton = new Button("Predict Tomorrow's Weather");
         predictButton.setBounds(300, getHeight() - 100, 200, 40);
-        predictButton.setFont(new Font("Arial", Font.BOLD, 16));
-        predictButton.setBackground(new Color(100, 149, 237));
+        predictButton.setFont(BUTTON_FONT);
+        predictButton.setBackground(BUTTON_COLOR);
         predictButton.setForeground(Color.WHITE);
         predictButton.addActionListener(e -> handlePrediction());
         add(predictButton);
@@ -52,8 +99,8 @@ public class WeatherGUI extends Frame {
         prevButton.setBounds(30, 40, 50, 50);
 
         for (Button btn : new Button[]{nextButton, prevButton}) {
-            btn.setFont(new Font("Arial", Font.BOLD, 24));
-            btn.setBackground(new Color(100, 149, 237, 200));
+            btn.setFont(ARROW_FONT);
+            btn.setBackground(ARROW_COLOR);
             btn.setForeground(Color.WHITE);
         }
 
@@ -65,41 +112,70 @@ public class WeatherGUI extends Frame {
     }
 
     private void handleCityChange(int direction) {
-        if (isWeatherUpdating) {
+        ViewState current = view.get();
+        if (current.weatherUpdating()) {
             return; // Prevent multiple simultaneous updates
         }
 
-        int newIndex = currentCityIndex + direction;
-        if (newIndex >= 0 && newIndex < cities.length) {
-            isWeatherUpdating = true;
-            currentCityIndex = newIndex;
+        int newIndex = current.cityIndex() + direction;
+        if (newIndex < 0 || newIndex >= cities.size()) {
+            return;
+        }
+        if (weatherApp.getWeatherData(newIndex) != null) {
+            // The background refresh already has this city; render it straight away
+            view.set(ViewState.showing(newIndex));
+            updateDisplay();
+            return;
+        }
 
-            // Update UI to show loading state
+        ViewState loading = new ViewState(newIndex, true, false, 0.0, null);
+        view.set(loading);
+        repaint();
+        runInBackground(() -> {
+            weatherApp.fetchWeatherDataForCity(newIndex);
+            return null;
+        }, ignored -> {
+            view.compareAndSet(loading, ViewState.showing(newIndex));
+            updateDisplay();
+        }, ex -> {
+            view.compareAndSet(loading, ViewState.showing(newIndex));
+            showErrorDialog("Error updating weather data: " + ex.getMessage());
             repaint();
+        });
+    }
 
-            new Thread(() -> {
+    /**
+     * Called from the refresh thread when a city's snapshot changes.
+     */
+    public void weatherUpdated(String city) {
+        EventQueue.invokeLater(() -> {
+            ViewState state = view.get();
+            if (!state.weatherUpdating() && cities.get(state.cityIndex()).equals(city)) {
+                updateDisplay();
+            }
+        });
+    }
+
+    /**
+     * Shows an error from a background startup stage; safe to call from any thread.
+     */
+    public void showError(String message) {
+        EventQueue.invokeLater(() -> showErrorDialog(message));
+    }
+
+    // Runs work on the worker pool and hands the outcome back on the event dispatch thread
+    private <T> void runInBackground(Callable<T> work, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        try {
+            workers.execute(() -> {
                 try {
-                    // Fetch and store new city's data (this will also clear previous city's data)
-                    weatherApp.fetchWeatherDataForCity(currentCityIndex);
-
-                    // Update display on EDT
-                    EventQueue.invokeLater(() -> {
-                        updateDisplay();
-                        isWeatherUpdating = false;
-                        // Reset prediction state
-                        predictedTemp = 0.0;
-                        isPredictionLoading = false;
-                        repaint();
-                    });
+                    T result = work.call();
+                    EventQueue.invokeLater(() -> onSuccess.accept(result));
                 } catch (Exception ex) {
-                    EventQueue.invokeLater(() -> {
-                        isWeatherUpdating = false;
-                        // Show error message to user
-                        showErrorDialog("Error updating weather data: " + ex.getMessage());
-                        repaint();
-                    });
+                    EventQueue.invokeLater(() -> onFailure.accept(ex));
                 }
-            }).start();
+            });
+        } catch (RejectedExecutionException ex) {
+            onFailure.accept(ex);
         }
     }
 
@@ -116,58 +192,42 @@ public class WeatherGUI extends Frame {
     }
 
     private void handlePrediction() {
-        if (isPredictionLoading || isWeatherUpdating) {
+        ViewState current = view.get();
+        if (current.predictionLoading() || current.weatherUpdating()) {
             return; // Prevent multiple simultaneous predictions
         }
 
-        isPredictionLoading = true;
+        ViewState loading = new ViewState(current.cityIndex(), false, true, 0.0, null);
+        view.set(loading);
         repaint();
 
-        new Thread(() -> {
-            try {
-                String currentCity = cities[currentCityIndex];
-                weatherApp.runPredictionForCity(currentCity);
-                predictedTemp = weatherApp.getPredictionForCity(currentCity);
-
-                EventQueue.invokeLater(() -> {
-                    isPredictionLoading = false;
-                    repaint();
-                });
-            } catch (Exception ex) {
-                EventQueue.invokeLater(() -> {
-                    isPredictionLoading = false;
-                    showErrorDialog("Error making prediction: " + ex.getMessage());
-                    repaint();
-                });
+        String city = cities.get(loading.cityIndex());
+        runInBackground(() -> weatherApp.runPredictionForCity(city), result -> {
+            // Dropped if the user moved to another city in the meantime
+            view.compareAndSet(loading, new ViewState(loading.cityIndex(), false, false,
+                result.predictedTemp(), result.forecast()));
+            repaint();
+        }, ex -> {
+            if (view.compareAndSet(loading, ViewState.showing(loading.cityIndex()))) {
+                showErrorDialog("Error making prediction: " + ex.getMessage());
             }
-        }).start();
+            repaint();
+        });
     }
 
     private void updateDisplay() {
-        JSONObject weatherData = weatherApp.getWeatherData(currentCityIndex);
+        int cityIndex = view.get().cityIndex();
+        WeatherTimeline.Current weatherData = weatherApp.getWeatherData(cityIndex);
         if (weatherData != null) {
-            updateBackgroundBasedOnCondition(weatherData.optString("conditions", "clear"));
-            setTitle("Weather Application - " + cities[currentCityIndex]);
+            updateBackgroundBasedOnCondition(weatherData.conditions() != null ? weatherData.conditions() : "clear");
+            setTitle("Weather Application - " + cities.get(cityIndex));
             repaint();
         }
     }
 
+    // Only picks the image; decoding and scaling happened once in the background cache
     private void updateBackgroundBasedOnCondition(String condition) {
-        String imagePath;
-        condition = condition.toLowerCase();
-        if (condition.contains("cloud")) {
-            imagePath = "C:\\Users\\shshv\\IdeaProjects\\multi-task\\java\\src\\main\\resources\\anandu-vinod-pbxwxwfI0B4-unsplash.jpg";
-        } else if (condition.contains("rain")) {
-            imagePath = "C:\\Users\\shshv\\IdeaProjects\\multi-task\\java\\src\\main\\resources\\vecteezy_ai-generated-rainy-sky-observations-background_42195747.jpg";
-        } else {
-            imagePath = "C:\\Users\\shshv\\IdeaProjects\\multi-task\\java\\src\\main\\resources\\drew-hays-_Vq7JTlS4XE-unsplash.jpg";
-        }
-
-        try {
-            backgroundImage = ImageIO.read(new File(imagePath));
-        } catch (IOException e) {
-            System.err.println("Error loading background image: " + e.getMessage());
-        }
+        sky = BackgroundCache.Sky.of(condition);
     }
 
     private void centerWindow() {
@@ -177,93 +237,158 @@ public class WeatherGUI extends Frame {
         setLocation(x, y);
     }
 
+    // The whole frame is repainted from the buffer, so skip AWT's clear-to-background that causes flicker
+    @Override
+    public void update(Graphics g) {
+        paint(g);
+    }
+
     @Override
     public void paint(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            buffer = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g2d = buffer.createGraphics();
+        try {
+            render(g2d, gc);
+        } finally {
+            g2d.dispose();
+        }
+        g.drawImage(buffer, 0, 0, null);
         super.paint(g);
-        Graphics2D g2d = (Graphics2D) g;
+    }
+
+    private void render(Graphics2D g2d, GraphicsConfiguration gc) {
+        ViewState state = view.get();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         // Draw background
-        if (backgroundImage != null) {
-            g2d.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
+        BufferedImage background = backgrounds.get(sky, getWidth(), getHeight(), gc);
+        if (background != null) {
+            g2d.drawImage(background, 0, 0, null);
+        } else {
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, getWidth(), getHeight());
         }
 
         // Draw loading indicator if updating
-        if (isWeatherUpdating) {
-            g2d.setFont(new Font("Arial", Font.BOLD, 20));
+        if (state.weatherUpdating()) {
+            g2d.setFont(STATUS_FONT);
             String loadingText = "Updating weather data...";
-            FontMetrics metrics = g2d.getFontMetrics();
+            FontMetrics metrics = metrics(g2d);
             int x = (getWidth() - metrics.stringWidth(loadingText)) / 2;
             drawTransparentLabel(g2d, loadingText, x, getHeight() / 2);
             return; // Don't draw weather info while updating
         }
 
-        // Draw weather information
-        JSONObject weatherData = weatherApp.getWeatherData(currentCityIndex);
+        // Draw weather information, or a placeholder until the first snapshot arrives
+        WeatherTimeline.Current weatherData = weatherApp.getWeatherData(state.cityIndex());
         if (weatherData != null) {
-            drawWeatherInfo(g2d, weatherData);
+            drawWeatherInfo(g2d, state, weatherData);
+        } else {
+            g2d.setFont(STATUS_FONT);
+            String waitingText = "Loading weather for " + cities.get(state.cityIndex()) + "...";
+            FontMetrics metrics = metrics(g2d);
+            int x = (getWidth() - metrics.stringWidth(waitingText)) / 2;
+            drawTransparentLabel(g2d, waitingText, x, getHeight() / 2);
         }
     }
 
-    private void drawWeatherInfo(Graphics2D g2d, JSONObject weatherData) {
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    // Metrics depend only on the font here, since every buffer is drawn with the same hints
+    private FontMetrics metrics(Graphics2D g2d) {
+        return fontMetrics.computeIfAbsent(g2d.getFont(), g2d::getFontMetrics);
+    }
 
+    private void drawWeatherInfo(Graphics2D g2d, ViewState state, WeatherTimeline.Current weatherData) {
         // Draw city name with larger font and better positioning
-        g2d.setFont(new Font("Arial", Font.BOLD, 32));
-        FontMetrics cityMetrics = g2d.getFontMetrics();
-        String cityName = cities[currentCityIndex];
+        g2d.setFont(CITY_FONT);
+        FontMetrics cityMetrics = metrics(g2d);
+        String cityName = cities.get(state.cityIndex());
         int cityX = (getWidth() - cityMetrics.stringWidth(cityName)) / 2;
         drawTransparentLabel(g2d, cityName, cityX, 100);
 
         // Draw current temperature with larger font
-        g2d.setFont(new Font("Arial", Font.BOLD, 64));
-        String tempText = String.format("%.1f°C", weatherData.optDouble("temp", 0.0));
-        FontMetrics tempMetrics = g2d.getFontMetrics();
+        g2d.setFont(TEMP_FONT);
+        String tempText = Double.isNaN(weatherData.temp()) ? "--°C" : String.format("%.1f°C", weatherData.temp());
+        FontMetrics tempMetrics = metrics(g2d);
         int tempX = (getWidth() - tempMetrics.stringWidth(tempText)) / 2;
         drawTransparentLabel(g2d, tempText, tempX, getHeight() / 3 + 30);
 
         // Draw weather details with improved spacing
-        g2d.setFont(new Font("Arial", Font.PLAIN, 18));
+        g2d.setFont(DETAIL_FONT);
         String[] details = {
-            String.format("Humidity: %.1f%%", weatherData.optDouble("humidity", 0.0)),
-            String.format("Wind Speed: %.1f km/h", weatherData.optDouble("windspeed", 0.0)),
-            "Condition: " + weatherData.optString("conditions", "Not available")
+            Double.isNaN(weatherData.humidity()) ? "Humidity: Not available"
+                : String.format("Humidity: %.1f%%", weatherData.humidity()),
+            Double.isNaN(weatherData.windspeed()) ? "Wind Speed: Not available"
+                : String.format("Wind Speed: %.1f km/h", weatherData.windspeed()),
+            "Condition: " + (weatherData.conditions() != null ? weatherData.conditions() : "Not available")
         };
 
         int detailsY = getHeight() / 2;
         for (String detail : details) {
-            FontMetrics metrics = g2d.getFontMetrics();
+            FontMetrics metrics = metrics(g2d);
             int x = (getWidth() - metrics.stringWidth(detail)) / 2;
             drawTransparentLabel(g2d, detail, x, detailsY);
             detailsY += 35;
         }
+        if (weatherApp.isStale(state.cityIndex())) {
+            g2d.setFont(STATUS_FONT);
+            String staleText = "Showing saved weather from an earlier session; updating...";
+            FontMetrics metrics = metrics(g2d);
+            drawTransparentLabel(g2d, staleText, (getWidth() - metrics.stringWidth(staleText)) / 2, detailsY);
+        }
 
         // Draw prediction status or result
-        if (isPredictionLoading) {
-            g2d.setFont(new Font("Arial", Font.BOLD, 20));
+        if (state.predictionLoading()) {
+            g2d.setFont(STATUS_FONT);
             String loadingText = "Calculating prediction...";
-            FontMetrics metrics = g2d.getFontMetrics();
+            FontMetrics metrics = metrics(g2d);
             int x = (getWidth() - metrics.stringWidth(loadingText)) / 2;
             drawTransparentLabel(g2d, loadingText, x, getHeight() - 150);
-        } else if (predictedTemp > 0) {
-            g2d.setFont(new Font("Arial", Font.BOLD, 22));
-            String predictionText = String.format("Tomorrow's Predicted Temperature: %.1f°C", predictedTemp);
-            FontMetrics metrics = g2d.getFontMetrics();
+        } else if (state.predictedTemp() > 0) {
+            g2d.setFont(PREDICTION_FONT);
+            String predictionText = String.format("Tomorrow's Predicted Temperature: %.1f°C", state.predictedTemp());
+            FontMetrics metrics = metrics(g2d);
             int x = (getWidth() - metrics.stringWidth(predictionText)) / 2;
             drawTransparentLabel(g2d, predictionText, x, getHeight() - 150);
         }
+        if (!state.predictionLoading() && state.forecast() != null && !state.forecast().days().isEmpty()) {
+            g2d.setFont(WEEK_FONT);
+            StringBuilder week = new StringBuilder();
+            for (Forecaster.ForecastDay day : state.forecast().days()) {
+                if (week.length() > 0) {
+                    week.append("   ");
+                }
+                week.append(String.format("%s %.0f–%.0f°",
+                    day.date().getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.getDefault()),
+                    day.tempMin(), day.tempMax()));
+            }
+            String weekText = week.toString();
+            FontMetrics metrics = metrics(g2d);
+            int x = (getWidth() - metrics.stringWidth(weekText)) / 2;
+            drawTransparentLabel(g2d, weekText, x, getHeight() - 195);
+        }
     }
 
     private void drawTransparentLabel(Graphics2D g2d, String text, int x, int y) {
-        FontMetrics metrics = g2d.getFontMetrics();
+        FontMetrics metrics = metrics(g2d);
         int width = metrics.stringWidth(text) + 30;
         int height = metrics.getHeight() + 15;
 
         // Draw semi-transparent background
-        g2d.setColor(new Color(255, 255, 255, 200));
+        g2d.setColor(LABEL_BACKGROUND);
         g2d.fillRoundRect(x - 15, y - metrics.getAscent() - 7, width, height, 20, 20);
 
         // Draw text
-        g2d.setColor(new Color(0, 0, 0, 230));
+        g2d.setColor(LABEL_TEXT);
         g2d.drawString(text, x, y);
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.OptionalDouble;
+
+/**
+ * Persistence operations used by {@link WeatherApp}. Implementations must be safe to call from
+ * the GUI worker threads and the prediction thread concurrently.
+ */
+public interface WeatherStore extends AutoCloseable {
+
+    /** One weather_data row: today's temperature with tomorrow's humidity and wind speed. */
+    record WeatherRow(String city, double temperature, double humidity, double windSpeed, LocalDate date) {
+    }
+
+    /**
+     * One predictions row: the predicted temperature for {@code targetDate}, {@code horizon} days after
+     * the day it was made. Max and min are NaN when the model did not produce them.
+     */
+    record PredictionRow(String city, double preds, double predsMax, double predsMin,
+                         LocalDate targetDate, int horizon) {
+
+        /** Tomorrow's temperature only, as the single-value model produces. */
+        public PredictionRow(String city, double preds) {
+            this(city, preds, Double.NaN, Double.NaN, LocalDate.now().plusDays(1), 1);
+        }
+    }
+
+    void createTables();
+
+    void clearAll();
+
+    void clearCity(String city);
+
+    default void storeWeather(WeatherRow row) {
+        store(List.of(row), List.of());
+    }
+
+    /**
+     * Writes all rows for any number of cities atomically.
+     */
+    void store(List<WeatherRow> weatherRows, List<PredictionRow> predictionRows);
+
+    /**
+     * Inserts the city's daily observations, replacing any already stored for the same dates, atomically.
+     * Missing values are stored as NULL.
+     */
+    void upsertObservations(String city, List<Observation> observations);
+
+    /**
+     * Returns the most recently stored next-day prediction for the city, if any.
+     */
+    OptionalDouble readPrediction(String city);
+
+    /**
+     * Returns the latest prediction for each target date from today on, ordered by date.
+     */
+    List<PredictionRow> readForecast(String city);
+
+    @Override
+    void close();
+}
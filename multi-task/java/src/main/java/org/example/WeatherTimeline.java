@@ -0,0 +1,49 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The parts of a Visual Crossing timeline response the application uses.
+ * Numeric fields are NaN when the response omits them or sends null.
+ */
+public record WeatherTimeline(String address, String timezone, Current current, List<Day> days) {
+
+    public WeatherTimeline {
+        days = days == null ? List.of() : List.copyOf(days);
+    }
+
+    /** The {@code currentConditions} block. */
+    public record Current(double temp, double humidity, double windspeed, String conditions) {
+    }
+
+    /** One entry of the {@code days} array, without its hourly breakdown. */
+    public record Day(LocalDate date, double temp, double tempMax, double tempMin,
+                      double humidity, double windspeed, double windDir, double dew,
+                      double seaLevelPressure, double cloudCover, double solarRadiation, double precip,
+                      String conditions) {
+
+        public Day(LocalDate date, double temp, double tempMax, double tempMin,
+                   double humidity, double windspeed, String conditions) {
+            this(date, temp, tempMax, tempMin, humidity, windspeed,
+                Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, conditions);
+        }
+
+        /** This day's values indexed by {@link ObservationField} ordinal, as the observation store keeps them. */
+        public double[] observationValues() {
+            double[] values = new double[ObservationField.count()];
+            values[ObservationField.TEMP.ordinal()] = temp;
+            values[ObservationField.TEMP_MAX.ordinal()] = tempMax;
+            values[ObservationField.TEMP_MIN.ordinal()] = tempMin;
+            values[ObservationField.HUMIDITY.ordinal()] = humidity;
+            values[ObservationField.WIND_SPEED.ordinal()] = windspeed;
+            values[ObservationField.WIND_DIR.ordinal()] = windDir;
+            values[ObservationField.DEW.ordinal()] = dew;
+            values[ObservationField.SEA_LEVEL_PRESSURE.ordinal()] = seaLevelPressure;
+            values[ObservationField.CLOUD_COVER.ordinal()] = cloudCover;
+            values[ObservationField.SOLAR_RADIATION.ordinal()] = solarRadiation;
+            values[ObservationField.PRECIP.ordinal()] = precip;
+            return values;
+        }
+    }
+}
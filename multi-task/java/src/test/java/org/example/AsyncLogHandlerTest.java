@@ -0,0 +1,105 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import junit.framework.TestCase;
+
+public class AsyncLogHandlerTest extends TestCase {
+
+    private static LogRecord record(Level level, String message, Object... params) {
+        LogRecord record = new LogRecord(level, message);
+        record.setLoggerName("org.example.WeatherApp");
+        record.setParameters(params);
+        return record;
+    }
+
+    public void testWritesKeyValueLinesWithParametersAndTrace() throws Exception {
+        Path dir = Files.createTempDirectory("logs");
+        Path file = dir.resolve("app.log");
+        AsyncLogHandler handler = new AsyncLogHandler(file, 1 << 20, 2, Duration.ofDays(1), 64);
+        handler.publish(record(Level.INFO, "Trained {0} on {1,number,#} rows", "Chennai", 12345));
+        try (Trace.Scope scope = Trace.begin("abc123")) {
+            handler.publish(record(Level.WARNING, "said \"hi\"\nthen left"));
+        }
+        handler.close();
+
+        String[] lines = Files.readString(file, StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0], lines[0].startsWith("ts="));
+        assertTrue(lines[0], lines[0].contains(" level=INFO logger=WeatherApp thread="));
+        assertTrue(lines[0], lines[0].endsWith(" msg=\"Trained Chennai on 12345 rows\""));
+        assertTrue(lines[1], lines[1].endsWith(" trace=abc123 msg=\"said \\\"hi\\\"\\nthen left\""));
+    }
+
+    public void testRotatesBySizeAndKeepsNewestFiles() throws Exception {
+        Path dir = Files.createTempDirectory("logs");
+        Path file = dir.resolve("app.log");
+        AsyncLogHandler handler = new AsyncLogHandler(file, 200, 2, Duration.ofDays(1), 1024);
+        for (int i = 0; i < 20; i++) {
+            handler.publish(record(Level.INFO, "line {0,number,#}", i));
+        }
+        handler.close();
+
+        assertTrue(Files.exists(dir.resolve("app.log.1")));
+        assertTrue(Files.exists(dir.resolve("app.log.2")));
+        assertFalse(Files.exists(dir.resolve("app.log.3")));
+        assertTrue(Files.readString(file).contains("msg=\"line 19\""));
+        assertTrue(Files.size(dir.resolve("app.log.1")) <= 200 + 120);
+    }
+
+    public void testRecordsAfterCloseAreIgnored() throws Exception {
+        Path file = Files.createTempDirectory("logs").resolve("app.log");
+        AsyncLogHandler handler = new AsyncLogHandler(file, 1 << 20, 1, Duration.ofDays(1), 8);
+        handler.publish(record(Level.INFO, "before"));
+        handler.close();
+        handler.publish(record(Level.INFO, "after"));
+
+        String text = Files.readString(file);
+        assertTrue(text.contains("msg=\"before\""));
+        assertFalse(text.contains("msg=\"after\""));
+        assertEquals(0, handler.dropped());
+    }
+
+    public void testKeepsWritingWhenRotationFails() throws Exception {
+        Path dir = Files.createTempDirectory("logs");
+        Path file = dir.resolve("app.log");
+        // A non-empty directory where the rotated file goes makes every rotation fail
+        Path blocker = Files.createDirectories(dir.resolve("app.log.1")).resolve("held");
+        Files.createFile(blocker);
+        AsyncLogHandler handler = new AsyncLogHandler(file, 100, 1, Duration.ofDays(1), 1024);
+        AtomicInteger errors = new AtomicInteger();
+        handler.setErrorManager(new ErrorManager() {
+            @Override
+            public synchronized void error(String msg, Exception ex, int code) {
+                errors.incrementAndGet();
+            }
+        });
+
+        for (int i = 0; i < 5; i++) {
+            handler.publish(record(Level.INFO, "blocked {0,number,#}", i));
+            handler.flush();
+        }
+        // flush only waits for the queue to empty, not for the writer to finish the batch it took
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!Files.readString(file).contains("msg=\"blocked 4\"") && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(Files.readString(file).contains("msg=\"blocked 4\""));
+        assertTrue(errors.get() > 0);
+
+        Files.delete(blocker);
+        Files.delete(blocker.getParent());
+        handler.publish(record(Level.INFO, "after"));
+        handler.close();
+        assertTrue(Files.readString(dir.resolve("app.log.1")).contains("msg=\"blocked 4\""));
+        assertTrue(Files.readString(file).contains("msg=\"after\""));
+        assertEquals(0, handler.dropped());
+    }
+}
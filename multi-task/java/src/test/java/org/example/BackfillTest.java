@@ -0,0 +1,76 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class BackfillTest extends TestCase {
+
+    private static Path writeHistory(Path dir, String name, int days) throws IOException {
+        StringBuilder csv = new StringBuilder("name,datetime");
+        for (ObservationField field : ObservationField.values()) {
+            csv.append(',').append(field.csvName());
+        }
+        csv.append('\n');
+        for (int d = 0; d < days; d++) {
+            csv.append("testville,2024-01-").append(String.format("%02d", d + 1));
+            for (ObservationField field : ObservationField.values()) {
+                csv.append(',').append(field == ObservationField.PRECIP ? "" : Integer.toString(20 + d));
+            }
+            csv.append('\n');
+        }
+        return Files.writeString(dir.resolve(name), csv);
+    }
+
+    // Fails the second transaction, as if the process died part way through a file
+    private static final class FailingStore extends InMemoryWeatherStore {
+        private int calls;
+
+        @Override
+        public synchronized void upsertObservations(String city, List<Observation> rows) {
+            if (++calls == 2) {
+                throw new RuntimeException("connection lost");
+            }
+            super.upsertObservations(city, rows);
+        }
+    }
+
+    public void testLoadsEveryFileInBatchesAndSkipsFinishedOnes() throws IOException {
+        Path dir = Files.createTempDirectory("history");
+        writeHistory(dir, "testville 2024-01-01 to 2024-01-10.csv", 10);
+        Files.writeString(dir.resolve("notes.csv"), "datetime\n");
+        Path checkpoint = dir.resolve("backfill.checkpoint");
+        InMemoryWeatherStore store = new InMemoryWeatherStore();
+
+        Backfill.Summary first = new Backfill(store, checkpoint, 4).run(List.of(dir, dir.resolve("missing-inbox")));
+        assertEquals(1, first.files());
+        assertEquals(10, first.rows());
+        List<Observation> rows = store.observations("Testville");
+        assertEquals(10, rows.size());
+        assertEquals(29.0, rows.get(9).get(ObservationField.TEMP), 0.0);
+        assertTrue(Double.isNaN(rows.get(9).get(ObservationField.PRECIP)));
+
+        Backfill.Summary second = new Backfill(store, checkpoint, 4).run(List.of(dir));
+        assertEquals(1, second.skipped());
+        assertEquals(0, second.rows());
+    }
+
+    public void testResumesAfterTheLastCommittedBatch() throws IOException {
+        Path dir = Files.createTempDirectory("history");
+        writeHistory(dir, "testville 2024-01-01 to 2024-01-10.csv", 10);
+        Path checkpoint = dir.resolve("backfill.checkpoint");
+        FailingStore store = new FailingStore();
+
+        Backfill.Summary failed = new Backfill(store, checkpoint, 4).run(List.of(dir));
+        assertEquals(1, failed.failed());
+        assertEquals(4, store.observations("Testville").size());
+
+        Backfill.Summary resumed = new Backfill(store, checkpoint, 4).run(List.of(dir));
+        assertEquals(0, resumed.failed());
+        assertEquals(6, resumed.rows());
+        assertEquals(10, store.observations("Testville").size());
+    }
+}
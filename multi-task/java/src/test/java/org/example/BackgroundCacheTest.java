@@ -0,0 +1,31 @@
+package org.example;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+
+public class BackgroundCacheTest extends TestCase {
+
+    public void testPicksSkyFromConditions() {
+        assertEquals(BackgroundCache.Sky.CLOUDY, BackgroundCache.Sky.of("Rain, Partially cloudy"));
+        assertEquals(BackgroundCache.Sky.RAINY, BackgroundCache.Sky.of("Rain, Overcast"));
+        assertEquals(BackgroundCache.Sky.CLEAR, BackgroundCache.Sky.of("Clear"));
+        assertEquals(BackgroundCache.Sky.CLEAR, BackgroundCache.Sky.of(null));
+    }
+
+    public void testDecodesOnceAndRescalesOnlyOnResize() {
+        BackgroundCache cache = new BackgroundCache(new Dimension(400, 300));
+        assertNull(cache.get(BackgroundCache.Sky.RAINY, 200, 150, null));
+
+        cache.preload();
+        BufferedImage first = cache.get(BackgroundCache.Sky.RAINY, 200, 150, null);
+        assertEquals(200, first.getWidth());
+        assertEquals(150, first.getHeight());
+        assertSame(first, cache.get(BackgroundCache.Sky.RAINY, 200, 150, null));
+
+        BufferedImage resized = cache.get(BackgroundCache.Sky.RAINY, 220, 150, null);
+        assertNotSame(first, resized);
+        assertEquals(220, resized.getWidth());
+    }
+}
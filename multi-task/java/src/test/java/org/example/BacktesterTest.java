@@ -0,0 +1,59 @@
+package org.example;
+
+import junit.framework.TestCase;
+
+public class BacktesterTest extends TestCase {
+    private static Backtester.Dataset seasonal(int n, int gapAt) {
+        long[] days = new long[n];
+        double[][] fields = new double[ObservationField.count()][n];
+        for (int r = 0; r < n; r++) {
+            days[r] = 19000 + r + (r >= gapAt ? 10 : 0);
+            for (int f = 0; f < fields.length; f++) {
+                fields[f][r] = 5.0 * f + Math.cos(r * 0.3 + f);
+            }
+            fields[ObservationField.TEMP.ordinal()][r] = 25.0 + 5.0 * Math.sin(2 * Math.PI * r / 365.0);
+        }
+        return Backtester.Dataset.of(days, fields, n);
+    }
+
+    public void testDatasetKeepsOnlyDaysEveryFeatureSetCanUse() {
+        Backtester.Dataset data = seasonal(200, 100);
+        // 29 warm-up days at the start and again after the gap, plus the day before the gap
+        assertEquals(200 - 29 - 29 - 1 - 1, data.size());
+        assertEquals(3, data.features[Backtester.FeatureSet.BASELINE.ordinal()].length);
+        assertEquals(FeaturePipeline.WIDTH + 2, data.features[Backtester.FeatureSet.RICH.ordinal()].length);
+        assertEquals(data.size(), data.features[Backtester.FeatureSet.RICH.ordinal()][0].length);
+    }
+
+    public void testWalkForwardScoresEveryDayAfterTheInitialWindow() {
+        Backtester backtester = new Backtester(60, 20, () -> new RandomForestRegressor(10, 8, 2, 1L));
+        Backtester.Dataset data = seasonal(150, 1000);
+        Backtester.Report report = backtester.run("Testville", data, Backtester.FeatureSet.RICH);
+
+        assertEquals(data.size() - 60, report.predictions());
+        assertEquals((report.predictions() + 19) / 20, report.fits());
+        assertTrue(report.mae() >= 0.0 && report.mae() < 1.0);
+        assertTrue(report.rmse() >= report.mae());
+        assertTrue(report.modelBytes() > 0);
+    }
+
+    public void testOnlineModelPredictsBeforeLearningEachDay() {
+        Backtester.Dataset data = seasonal(150, 1000);
+        Backtester.Report report = new Backtester(60, 20, RandomForestRegressor::new).runOnline("Testville", data,
+            Backtester.FeatureSet.RICH, new OnlineRegressor(Backtester.FeatureSet.RICH.width));
+
+        assertEquals(Backtester.Model.ONLINE, report.model());
+        assertEquals(data.size() - 60, report.predictions());
+        assertEquals(data.size(), report.fits());
+        assertTrue(report.mae() >= 0.0 && report.mae() < 1.0);
+    }
+
+    public void testRejectsTooShortHistory() {
+        try {
+            new Backtester(500, 10, RandomForestRegressor::new).run("Testville", seasonal(100, 1000),
+                Backtester.FeatureSet.BASELINE);
+            fail("Expected too short a history to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class CityRegistryTest extends TestCase {
+    private static final Path HISTORY_DIR = Paths.get("src/main/java/org/example");
+
+    public void testDiscoversCitiesFromHistoryFiles() {
+        CityRegistry registry = CityRegistry.load(null, HISTORY_DIR);
+        assertEquals(List.of("Bangalore", "Chennai", "Delhi"), registry.names());
+        assertEquals(1, registry.indexOf("CHENNAI"));
+        assertEquals("Delhi", registry.canonical("delhi"));
+    }
+
+    public void testConfiguredListWinsAndIsDeduplicated() {
+        CityRegistry registry = CityRegistry.load(" Mumbai, Pune ,mumbai", HISTORY_DIR);
+        assertEquals(List.of("Mumbai", "Pune"), registry.names());
+        assertEquals(-1, registry.indexOf("Chennai"));
+        try {
+            registry.canonical("Chennai");
+            fail("Expected an unsupported city");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testParsesMultiWordCityNames() {
+        assertEquals("new delhi", CityRegistry.cityOf(Paths.get("new delhi 2023-01-01 to 2024-11-08.csv")));
+        assertNull(CityRegistry.cityOf(Paths.get("notes.csv")));
+    }
+}
@@ -0,0 +1,61 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+import junit.framework.TestCase;
+
+public class ColumnarCsvReaderTest extends TestCase {
+
+    private static ColumnTable parse(String csv, ColumnarCsvReader.Column... columns) throws IOException {
+        return new ColumnarCsvReader(columns).read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void testProjectsColumnsAcrossQuotedCommas() throws IOException {
+        String csv = "name,datetime,temp,conditions,humidity,stations\r\n"
+            + "chennai,2022-02-01,26.2,\"Rain, Partially cloudy\",80,\"VOMM,43279099999\"\r\n"
+            + "chennai,2022-02-02,-1.5e1,\"say \"\"hi\"\"\",,\"A,B\"\r\n";
+        ColumnTable table = parse(csv,
+            ColumnarCsvReader.Column.epochDays("datetime"),
+            ColumnarCsvReader.Column.doubles("temp"),
+            ColumnarCsvReader.Column.doubles("humidity"));
+
+        assertEquals(2, table.rows());
+        assertEquals(LocalDate.of(2022, 2, 1).toEpochDay(), table.epochDays("datetime")[0]);
+        assertEquals(LocalDate.of(2022, 2, 2).toEpochDay(), table.epochDays("datetime")[1]);
+        assertEquals(26.2, table.doubles("temp")[0], 0.0);
+        assertEquals(-15.0, table.doubles("temp")[1], 0.0);
+        assertEquals(80.0, table.doubles("humidity")[0], 0.0);
+        assertTrue(Double.isNaN(table.doubles("humidity")[1]));
+    }
+
+    public void testMissingColumnIsRejected() throws IOException {
+        try {
+            parse("a,b\n1,2\n", ColumnarCsvReader.Column.doubles("temp"));
+            fail("expected missing column to be reported");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("temp"));
+        }
+    }
+
+    public void testEpochDayMatchesLocalDate() {
+        for (LocalDate d = LocalDate.of(1899, 12, 25); d.isBefore(LocalDate.of(2101, 3, 1)); d = d.plusDays(17)) {
+            assertEquals(d.toString(), d.toEpochDay(),
+                ColumnarCsvReader.epochDay(d.getYear(), d.getMonthValue(), d.getDayOfMonth()));
+        }
+    }
+
+    public void testReadsHistoryFile() throws IOException {
+        ColumnTable table = new ColumnarCsvReader(
+            ColumnarCsvReader.Column.epochDays("datetime"),
+            ColumnarCsvReader.Column.doubles("sealevelpressure"))
+            .read(Paths.get("src/main/java/org/example/chennai 2022-02-01 to 2024-10-03.csv"));
+
+        assertEquals(976, table.rows());
+        assertEquals(LocalDate.of(2022, 2, 1).toEpochDay(), table.epochDays("datetime")[0]);
+        assertEquals(1010.4, table.doubles("sealevelpressure")[0], 0.0);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class FeaturePipelineTest extends TestCase {
+    private static final int DAYS = 60;
+
+    private static double[][] fields(int n) {
+        double[][] fields = new double[ObservationField.count()][n];
+        for (int r = 0; r < n; r++) {
+            for (int f = 0; f < fields.length; f++) {
+                fields[f][r] = 10.0 * f + Math.sin(r * 0.7 + f);
+            }
+            fields[ObservationField.WIND_DIR.ordinal()][r] = 90.0;
+        }
+        return fields;
+    }
+
+    private static long[] days(int n, long first) {
+        long[] days = new long[n];
+        for (int r = 0; r < n; r++) {
+            days[r] = first + r;
+        }
+        return days;
+    }
+
+    private static int feature(String name) {
+        return FeaturePipeline.FEATURE_NAMES.indexOf(name);
+    }
+
+    public void testIncrementalPushMatchesBatchTransform() {
+        long[] days = days(DAYS, 19000);
+        double[][] fields = fields(DAYS);
+        FeaturePipeline.FeatureMatrix batch = FeaturePipeline.transform(days, fields, DAYS);
+
+        FeaturePipeline pipeline = new FeaturePipeline();
+        double[] values = new double[ObservationField.count()];
+        double[] row = new double[FeaturePipeline.WIDTH];
+        for (int r = 0; r < DAYS; r++) {
+            for (int f = 0; f < values.length; f++) {
+                values[f] = fields[f][r];
+            }
+            assertEquals(batch.ready()[r], pipeline.push(days[r], values, row, 0));
+            for (int c = 0; c < FeaturePipeline.WIDTH; c++) {
+                assertEquals(0, Double.compare(batch.columns()[c][r], row[c]));
+            }
+        }
+        assertFalse(batch.ready()[28]);
+        assertTrue(batch.ready()[29]);
+    }
+
+    public void testRollingStatisticsMatchDirectComputation() {
+        double[][] fields = fields(DAYS);
+        FeaturePipeline.FeatureMatrix matrix = FeaturePipeline.transform(days(DAYS, 19000), fields, DAYS);
+        double[] temp = fields[ObservationField.TEMP.ordinal()];
+        int r = DAYS - 1;
+
+        double[] window = Arrays.copyOfRange(temp, r - 29, r + 1);
+        double mean = Arrays.stream(window).average().orElseThrow();
+        double variance = Arrays.stream(window).map(x -> (x - mean) * (x - mean)).sum() / (window.length - 1);
+        assertEquals(mean, matrix.columns()[feature("temp_mean30")][r], 1e-9);
+        assertEquals(variance, matrix.columns()[feature("temp_var30")][r], 1e-9);
+        assertEquals(temp[r - 7], matrix.columns()[feature("temp_lag7")][r], 0.0);
+        // Wind from the east blows west
+        assertEquals(-fields[ObservationField.WIND_SPEED.ordinal()][r], matrix.columns()[feature("wind_u")][r], 1e-9);
+    }
+
+    public void testFieldMissingAtSegmentStartDoesNotPoisonItsWindow() {
+        double[][] fields = fields(DAYS);
+        fields[ObservationField.PRECIP.ordinal()][0] = Double.NaN;
+        fields[ObservationField.SOLAR_RADIATION.ordinal()][0] = Double.NaN;
+        FeaturePipeline.FeatureMatrix matrix = FeaturePipeline.transform(days(DAYS, 19000), fields, DAYS);
+
+        assertFalse(matrix.ready()[0]);
+        assertTrue(matrix.ready()[29]);
+        double[] precip = fields[ObservationField.PRECIP.ordinal()];
+        double mean = Arrays.stream(precip, DAYS - 7, DAYS).average().orElseThrow();
+        assertEquals(mean, matrix.columns()[feature("precip_mean7")][DAYS - 1], 1e-9);
+    }
+
+    public void testGapResetsStateAndMissingValuesCarryForward() {
+        long[] days = days(40, 19000);
+        for (int r = 35; r < days.length; r++) {
+            days[r] += 5;
+        }
+        double[][] fields = fields(40);
+        fields[ObservationField.HUMIDITY.ordinal()][34] = Double.NaN;
+        FeaturePipeline.FeatureMatrix matrix = FeaturePipeline.transform(days, fields, 40);
+
+        assertEquals(fields[ObservationField.HUMIDITY.ordinal()][33], matrix.columns()[feature("humidity")][34], 0.0);
+        assertTrue(matrix.ready()[34]);
+        assertFalse(matrix.ready()[35]);
+        assertTrue(Double.isNaN(matrix.columns()[feature("temp_lag1")][35]));
+
+        try {
+            FeaturePipeline pipeline = new FeaturePipeline();
+            pipeline.push(5, new double[ObservationField.count()], new double[FeaturePipeline.WIDTH], 0);
+            pipeline.push(5, new double[ObservationField.count()], new double[FeaturePipeline.WIDTH], 0);
+            fail("Expected a repeated day to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
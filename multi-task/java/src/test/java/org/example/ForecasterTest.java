@@ -0,0 +1,44 @@
+package org.example;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ForecasterTest extends TestCase {
+
+    public void testPairsDaysByCalendarWithinHorizon() {
+        long[] days = {100, 101, 102, 104};
+        double[] temp = {20, 21, 22, 24};
+        double[] humidity = {50, 51, 52, 54};
+        ForecastSet set = ForecastSet.of(days, temp, temp, temp, humidity, humidity, days.length, 2);
+
+        // (100,101) (100,102) (101,102) (102,104); 101->103 and 103 don't exist
+        assertEquals(4, set.size());
+        assertEquals(2.0, set.features()[3][1], 0.0);
+        assertEquals(24.0, set.target(0)[3], 0.0);
+    }
+
+    public void testForecastsEveryDayOfTheHorizon() throws Exception {
+        Forecaster forecaster = new Forecaster(Paths.get("src/main/java/org/example"),
+            new ModelStore(Files.createTempDirectory("models")), null);
+
+        LocalDate today = LocalDate.of(2024, 10, 4);
+        List<WeatherTimeline.Day> days = new ArrayList<>();
+        for (int i = 0; i <= Forecaster.HORIZON_DAYS; i++) {
+            days.add(new WeatherTimeline.Day(today.plusDays(i), 29, 33, 26, 75, 15, "Clear"));
+        }
+        Forecaster.Forecast forecast = forecaster.forecast(new WeatherFetcher.CityWeather("Chennai",
+            new WeatherTimeline.Current(29.0, 75.0, 15.0, "Clear"), days));
+
+        assertEquals(Forecaster.HORIZON_DAYS, forecast.days().size());
+        for (Forecaster.ForecastDay day : forecast.days()) {
+            assertEquals(today.plusDays(day.horizon()), day.date());
+            assertTrue(day.temp() > 20 && day.temp() < 38);
+            assertTrue(day.tempMin() <= day.tempMax());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+public class MetricsTest extends TestCase {
+
+    public void testTimerBucketsAndScrapeFormat() {
+        Metrics.Timer timer = Metrics.timer("test_timer_seconds", "Test timer", "op", "a\"b");
+        timer.record(40_000L);
+        timer.record(80_000L);
+        timer.record(2_000_000_000_000L);
+
+        assertEquals(3, timer.getCount());
+        assertEquals(0.1, timer.getP50Millis(), 1e-9);
+        assertEquals(2_000_000.0, timer.getMaxMillis(), 1e-6);
+
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("# TYPE test_timer_seconds histogram\n"));
+        assertTrue(scrape.contains("test_timer_seconds_bucket{op=\"a\\\"b\",le=\"0.000050\"} 1\n"));
+        assertTrue(scrape.contains("test_timer_seconds_bucket{op=\"a\\\"b\",le=\"0.000100\"} 2\n"));
+        assertTrue(scrape.contains("test_timer_seconds_bucket{op=\"a\\\"b\",le=\"+Inf\"} 3\n"));
+        assertTrue(scrape.contains("test_timer_seconds_count{op=\"a\\\"b\"} 3\n"));
+    }
+
+    public void testSameNameAndLabelsShareOneMetric() throws Exception {
+        Metrics.counter("test_events_total", "Test events", "kind", "x").increment();
+        Metrics.counter("test_events_total", "Test events", "kind", "x").increment();
+        Metrics.counter("test_events_total", "Test events", "kind", "y").increment();
+
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("test_events_total{kind=\"x\"} 2\n"));
+        assertTrue(scrape.contains("test_events_total{kind=\"y\"} 1\n"));
+        assertEquals(scrape.indexOf("# HELP test_events_total"), scrape.lastIndexOf("# HELP test_events_total"));
+
+        Object count = ManagementFactory.getPlatformMBeanServer().getAttribute(
+            new ObjectName("org.example:type=Metrics,name=test_events_total,kind=\"x\""), "Count");
+        assertEquals(2L, count);
+
+        try {
+            Metrics.timer("test_events_total", "Test events", "kind", "x");
+            fail("Expected a type clash to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testTraceScopesNestAndClientIdsAreValidated() {
+        assertEquals("-", Trace.current());
+        try (Trace.Scope outer = Trace.begin("outer")) {
+            try (Trace.Scope inner = Trace.begin("inner")) {
+                assertEquals("[trace=inner] x", Trace.tag("x"));
+            }
+            assertEquals("outer", Trace.current());
+        }
+        assertEquals("-", Trace.current());
+
+        assertEquals("req-42", Trace.fromClient("req-42"));
+        assertEquals(16, Trace.fromClient("bad id\n").length());
+        assertEquals(16, Trace.fromClient(null).length());
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class ModelCacheTest extends TestCase {
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        ModelCache<String> cache = new ModelCache<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("Chennai", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "model";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        assertFalse(cache.isReady("chennai"));
+        // Another city is not held up by the load in progress
+        assertEquals("other", cache.get("Mumbai", () -> "other"));
+
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get("CHENNAI", () -> {
+            loads.incrementAndGet();
+            return "duplicate";
+        }));
+        release.countDown();
+
+        assertEquals("model", first.get(5, TimeUnit.SECONDS));
+        assertEquals("model", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertTrue(cache.isReady("Chennai"));
+    }
+
+    public void testFailedLoadIsRetried() {
+        ModelCache<String> cache = new ModelCache<>();
+        try {
+            cache.get("Chennai", () -> {
+                throw new IllegalStateException("no rows");
+            });
+            fail("The load's exception should reach the caller");
+        } catch (IllegalStateException e) {
+            assertEquals("no rows", e.getMessage());
+        }
+        assertFalse(cache.isReady("Chennai"));
+        assertEquals("model", cache.get("Chennai", () -> "model"));
+    }
+}
@@ -0,0 +1,73 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.TestCase;
+
+public class ModelStoreTest extends TestCase {
+
+    public void testRoundTripPreservesPredictions() throws IOException {
+        Path dir = Files.createTempDirectory("models");
+        double[] x = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        double[] y = {2, 4, 5, 4, 5, 7, 8, 9, 12, 11};
+        RandomForestRegressor forest = new RandomForestRegressor(20, Integer.MAX_VALUE, 1, 42L)
+            .fit(new double[][]{x}, y);
+
+        ModelStore store = new ModelStore(dir);
+        store.save("Chennai", "abc123", forest);
+        RandomForestRegressor loaded = store.load("chennai", "abc123");
+
+        assertNotNull(loaded);
+        for (double v = 0.5; v < 11; v += 0.5) {
+            assertEquals(forest.predict(new double[]{v}), loaded.predict(new double[]{v}), 0.0);
+        }
+    }
+
+    public void testMissesWhenSourceHashChanges() throws IOException {
+        Path dir = Files.createTempDirectory("models");
+        RandomForestRegressor forest = new RandomForestRegressor(5, Integer.MAX_VALUE, 1, 1L)
+            .fit(new double[][]{{1, 2, 3}}, new double[]{1, 2, 3});
+
+        ModelStore store = new ModelStore(dir);
+        store.save("Delhi", "old", forest);
+        store.save("Delhi", "new", forest);
+
+        assertNull(store.load("Delhi", "old"));
+        assertNotNull(store.load("Delhi", "new"));
+    }
+
+    public void testSavingKeepsOtherCitiesSharingThePrefix() throws IOException {
+        Path dir = Files.createTempDirectory("models");
+        RandomForestRegressor forest = new RandomForestRegressor(5, Integer.MAX_VALUE, 1, 1L)
+            .fit(new double[][]{{1, 2, 3}}, new double[]{1, 2, 3});
+
+        ModelStore store = new ModelStore(dir);
+        store.save("New-Delhi", "abc", forest);
+        store.save("New", "def", forest);
+        store.save("New", "ghi", forest);
+
+        assertNotNull(store.load("New-Delhi", "abc"));
+        assertNull(store.load("New", "def"));
+        assertNotNull(store.load("New", "ghi"));
+    }
+
+    public void testStoresSeveralForestsInOneFile() throws IOException {
+        Path dir = Files.createTempDirectory("models");
+        double[][] x = {{1, 2, 3, 4, 5, 6}, {6, 5, 4, 3, 2, 1}};
+        RandomForestRegressor first = new RandomForestRegressor(5, Integer.MAX_VALUE, 1, 1L)
+            .fit(x, new double[]{1, 2, 3, 4, 5, 6});
+        RandomForestRegressor second = new RandomForestRegressor(7, Integer.MAX_VALUE, 1, 2L)
+            .fit(x, new double[]{9, 7, 5, 3, 1, 0});
+
+        ModelStore store = new ModelStore(dir);
+        store.save("Chennai.forecast", "abc", first, second);
+        RandomForestRegressor[] loaded = store.loadAll("Chennai.forecast", "abc");
+
+        assertEquals(2, loaded.length);
+        double[] row = {3.5, 2.5};
+        assertEquals(first.predict(row), loaded[0].predict(row), 0.0);
+        assertEquals(second.predict(row), loaded[1].predict(row), 0.0);
+    }
+}
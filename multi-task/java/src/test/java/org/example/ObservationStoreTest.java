@@ -0,0 +1,95 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import junit.framework.TestCase;
+
+public class ObservationStoreTest extends TestCase {
+
+    private static Observation day(LocalDate date, double temp) {
+        double[] values = Observation.emptyValues();
+        values[ObservationField.TEMP.ordinal()] = temp;
+        values[ObservationField.HUMIDITY.ordinal()] = 60;
+        return new Observation(date, values);
+    }
+
+    public void testUpsertReplacesExistingDay() {
+        ObservationStore store = new ObservationStore(null);
+        LocalDate d = LocalDate.of(2024, 5, 10);
+        store.upsert("Chennai", day(d, 30));
+        store.upsert("chennai", day(d, 31));
+
+        ObservationStore.Range range = store.scan("Chennai", d, d);
+        assertEquals(1, range.size());
+        assertEquals(31.0, range.column(ObservationField.TEMP)[0], 0.0);
+    }
+
+    public void testCompactsOlderMonthsAndScansInOrder() throws IOException {
+        Path dir = Files.createTempDirectory("observations");
+        ObservationStore store = new ObservationStore(dir);
+        for (LocalDate d = LocalDate.of(2024, 1, 20); d.isBefore(LocalDate.of(2024, 3, 6)); d = d.plusDays(1)) {
+            store.upsert("Delhi", day(d, d.getDayOfMonth()));
+        }
+        // A late correction into an already compacted month
+        store.upsert("Delhi", day(LocalDate.of(2024, 2, 14), -5));
+
+        assertTrue(Files.exists(dir.resolve("delhi").resolve("2024-01.seg")));
+        assertTrue(Files.exists(dir.resolve("delhi").resolve("2024-02.seg")));
+
+        ObservationStore.Range range = store.scan("Delhi", LocalDate.of(2024, 1, 31), LocalDate.of(2024, 3, 2));
+        assertEquals(32, range.size());
+        for (int i = 1; i < range.size(); i++) {
+            assertTrue(range.days()[i - 1] < range.days()[i]);
+        }
+        assertEquals(LocalDate.of(2024, 1, 31).toEpochDay(), range.days()[0]);
+        assertEquals(-5.0, range.column(ObservationField.TEMP)[14], 0.0);
+
+        ObservationStore reopened = new ObservationStore(dir);
+        assertEquals(LocalDate.of(2024, 3, 5), reopened.lastDate("Delhi").get());
+        assertEquals(5, reopened.since("Delhi", LocalDate.of(2024, 2, 29)).size());
+        assertTrue(Double.isNaN(reopened.scan("Delhi", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 1))
+            .column(ObservationField.PRECIP)[0]));
+    }
+
+    public void testIgnoresHotLogDaysLeftBehindByInterruptedCompaction() throws IOException {
+        Path dir = Files.createTempDirectory("observations");
+        ObservationStore store = new ObservationStore(dir);
+        store.upsert("Delhi", day(LocalDate.of(2024, 1, 30), 10));
+        store.upsert("Delhi", day(LocalDate.of(2024, 2, 1), 12));
+        assertTrue(Files.exists(dir.resolve("delhi").resolve("2024-01.seg")));
+
+        // As if the process died after writing the segment but before rewriting the hot log
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(
+                dir.resolve("delhi").resolve("hot.log"), StandardOpenOption.APPEND))) {
+            double[] values = day(LocalDate.of(2024, 1, 30), 10).values();
+            out.writeLong(LocalDate.of(2024, 1, 30).toEpochDay());
+            out.writeInt(values.length);
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        }
+
+        ObservationStore reopened = new ObservationStore(dir);
+        ObservationStore.Range range = reopened.scan("Delhi", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 28));
+        assertEquals(2, range.size());
+        assertEquals(2, new ObservationStore(dir).scan("Delhi", LocalDate.MIN, LocalDate.MAX).size());
+    }
+
+    public void testTrainingSetAppendsOnlyConsecutiveNewDays() {
+        TrainingSet set = new TrainingSet();
+        long d = LocalDate.of(2024, 1, 1).toEpochDay();
+        set.appendDays(new long[]{d, d + 1, d + 3}, new double[]{20, 21, 23},
+            new double[]{50, 51, 53}, new double[]{5, 6, 8});
+        assertEquals(1, set.size());
+        assertEquals(21.0, set.target()[0], 0.0);
+
+        assertEquals(1, set.appendDays(new long[]{d + 3, d + 4}, new double[]{0, 24},
+            new double[]{0, 54}, new double[]{0, 9}));
+        assertEquals(23.0, set.features()[0][1], 0.0);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class OnlineRegressorTest extends TestCase {
+
+    public void testConvergesOnLinearTarget() {
+        OnlineRegressor model = new OnlineRegressor(3);
+        assertTrue(Double.isNaN(model.predict(new double[]{1, 2, 3})));
+
+        Random random = new Random(7);
+        double[] row = new double[3];
+        for (int i = 0; i < 5000; i++) {
+            row[0] = random.nextGaussian() * 10 + 30;
+            row[1] = random.nextGaussian();
+            row[2] = 4.0; // constant, so it must not destabilize the scaling
+            model.update(row, 2.0 * row[0] - 3.0 * row[1] + 1.0);
+        }
+        assertEquals(5000, model.count());
+        assertEquals(2.0 * 25 - 3.0 * 0.5 + 1.0, model.predict(new double[]{25, 0.5, 4.0}), 0.2);
+    }
+
+    public void testRejectsRowsOfTheWrongWidth() {
+        try {
+            new OnlineRegressor(3).update(new double[2], 1.0);
+            fail("Expected a short row to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testCityModelLearnsEachDayOnceItIsComplete() {
+        OnlinePredictor.CityModel city = new OnlinePredictor.CityModel();
+        double[] values = Observation.emptyValues();
+        long day = 19000;
+        for (; day < 19000 + 120; day++) {
+            Arrays.fill(values, 50.0);
+            values[ObservationField.TEMP.ordinal()] = 25.0 + 5.0 * Math.sin(day * 0.05);
+            values[ObservationField.HUMIDITY.ordinal()] = 60.0 + Math.cos(day * 0.3);
+            values[ObservationField.WIND_DIR.ordinal()] = 90.0;
+            assertTrue(city.observe(day, values));
+        }
+        // The first 30 days fill the windows and the last one is still pending
+        long rows = city.rows();
+        assertEquals(120 - 30 - 1, rows);
+
+        // Updates to the pending day replace it instead of being learned
+        assertTrue(city.observe(day - 1, values));
+        assertEquals(rows, city.rows());
+        assertFalse(city.observe(day - 2, values));
+        assertTrue(city.predict(60.0, 50.0).isPresent());
+
+        city.observe(day, values);
+        assertEquals(rows + 1, city.rows());
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.OptionalDouble;
+
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+public class PredictionServerTest extends TestCase {
+    private PredictionServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Override
+    protected void setUp() {
+        server = new PredictionServer(0, 2, new PredictionServer.Backend() {
+            @Override
+            public WeatherTimeline.Current currentWeather(String city) {
+                check(city);
+                return city.equals("Chennai") ? new WeatherTimeline.Current(31.5, 70.0, Double.NaN, "Clear") : null;
+            }
+
+            @Override
+            public OptionalDouble predict(String city) {
+                check(city);
+                return city.equals("Chennai") ? OptionalDouble.of(30.25) : OptionalDouble.empty();
+            }
+
+            @Override
+            public Forecaster.Forecast forecast(String city) {
+                check(city);
+                return new Forecaster.Forecast(city, city.equals("Chennai")
+                    ? List.of(new Forecaster.ForecastDay(LocalDate.of(2024, 10, 4), 1, 30.0, 33.0, 26.5))
+                    : List.of());
+            }
+
+            private void check(String city) {
+                if (!city.equals("Chennai") && !city.equals("New Delhi")) {
+                    throw new IllegalArgumentException("Unsupported city: " + city);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    public void testServesCurrentConditions() throws Exception {
+        HttpResponse<String> response = get("/current/Chennai");
+        assertEquals(200, response.statusCode());
+        JSONObject json = new JSONObject(response.body());
+        assertEquals(31.5, json.getDouble("temp"), 0.0);
+        assertEquals("Clear", json.getString("conditions"));
+        assertTrue(json.isNull("windspeed"));
+    }
+
+    public void testServesPrediction() throws Exception {
+        HttpResponse<String> response = get("/predict/Chennai");
+        assertEquals(200, response.statusCode());
+        assertEquals(30.25, new JSONObject(response.body()).getDouble("predictedTemp"), 0.0);
+    }
+
+    public void testServesForecastDays() throws Exception {
+        HttpResponse<String> response = get("/forecast/Chennai");
+        assertEquals(200, response.statusCode());
+        JSONObject day = new JSONObject(response.body()).getJSONArray("days").getJSONObject(0);
+        assertEquals("2024-10-04", day.getString("date"));
+        assertEquals(26.5, day.getDouble("tempMin"), 0.0);
+        assertEquals(503, get("/forecast/New%20Delhi").statusCode());
+    }
+
+    public void testReportsMissingDataAndUnknownCities() throws Exception {
+        assertEquals(503, get("/predict/New%20Delhi").statusCode());
+        assertEquals(404, get("/current/Atlantis").statusCode());
+        assertEquals(404, get("/current/").statusCode());
+    }
+
+    public void testTagsResponsesWithTraceIdsAndCountsThem() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + server.port() + "/predict/Chennai"))
+            .header("X-Request-Id", "abc-123").build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals("abc-123", response.headers().firstValue("X-Trace-Id").orElse(null));
+        assertEquals(16, get("/current/Atlantis").headers().firstValue("X-Trace-Id").orElse("").length());
+
+        HttpResponse<String> metrics = get("/metrics");
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        assertTrue(metrics.body().contains("http_requests_total{route=\"current\",status=\"404\"}"));
+        assertTrue(metrics.body().contains("# TYPE http_request_seconds histogram"));
+    }
+}
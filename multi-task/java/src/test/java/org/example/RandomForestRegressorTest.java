@@ -0,0 +1,73 @@
+package org.example;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class RandomForestRegressorTest extends TestCase {
+
+    public void testFitsLinearSignal() {
+        int rows = 500;
+        double[] x0 = new double[rows];
+        double[] x1 = new double[rows];
+        double[] y = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            x0[i] = i % 50;
+            x1[i] = (i * 7) % 13;
+            y[i] = 2.0 * x0[i] + 0.5 * x1[i];
+        }
+
+        RandomForestRegressor forest = new RandomForestRegressor(50, Integer.MAX_VALUE, 1, 42L)
+            .fit(new double[][]{x0, x1}, y);
+
+        assertEquals(2.0 * 20 + 0.5 * 6, forest.predict(new double[]{20, 6}), 1.5);
+        assertEquals(2.0 * 45 + 0.5 * 1, forest.predict(new double[]{45, 1}), 1.5);
+    }
+
+    public void testDeterministicForSameSeed() {
+        double[] x = {1, 2, 3, 4, 5, 6, 7, 8};
+        double[] y = {3, 1, 4, 1, 5, 9, 2, 6};
+        double a = new RandomForestRegressor(10, Integer.MAX_VALUE, 1, 7L).fit(new double[][]{x}, y).predict(new double[]{4.5});
+        double b = new RandomForestRegressor(10, Integer.MAX_VALUE, 1, 7L).fit(new double[][]{x}, y).predict(new double[]{4.5});
+        assertEquals(a, b, 0.0);
+    }
+
+    public void testBatchPredictionMatchesRowByRow() {
+        double[] x0 = {1, 2, 3, 4, 5, 6, 7, 8};
+        double[] x1 = {8, 3, 6, 1, 7, 2, 5, 4};
+        double[] y = {3, 1, 4, 1, 5, 9, 2, 6};
+        RandomForestRegressor forest = new RandomForestRegressor(15, Integer.MAX_VALUE, 1, 3L)
+            .fit(new double[][]{x0, x1}, y);
+
+        double[] matrix = {1.5, 7.0, 4.5, 2.0, 7.5, 4.5};
+        double[] batch = forest.predictBatch(matrix);
+        assertEquals(3, batch.length);
+        for (int r = 0; r < batch.length; r++) {
+            assertEquals(forest.predict(new double[]{matrix[2 * r], matrix[2 * r + 1]}), batch[r], 0.0);
+        }
+    }
+
+    public void testPredictsFromCityHistory() {
+        TemperaturePredictor predictor = new TemperaturePredictor(Paths.get("src/main/java/org/example"));
+        double predicted = predictor.predict("Chennai", 29.0, 75.0, 15.0);
+        assertTrue("Unexpected prediction " + predicted, predicted > 20.0 && predicted < 35.0);
+        assertTrue(predictor.isTrained("chennai"));
+    }
+
+    public void testBatchTrainsEveryCityOnOnePool() {
+        TemperaturePredictor predictor = new TemperaturePredictor(Paths.get("src/main/java/org/example"));
+        BatchTrainer.Summary summary = new BatchTrainer(predictor, null, 4)
+            .trainAll(List.of("Chennai", "Bangalore", "Delhi", "Atlantis"), false);
+
+        assertEquals(4, summary.results().size());
+        assertEquals(1, summary.failures());
+        assertFalse(summary.results().get(3).succeeded());
+        assertTrue(predictor.isTrained("Delhi"));
+
+        // Trees built on the batch pool match those built on the common pool
+        double[] row = {29.0, 75.0, 15.0};
+        assertEquals(new TemperaturePredictor(Paths.get("src/main/java/org/example")).predict("Chennai", 29.0, 75.0, 15.0),
+            predictor.modelFor("Chennai").predict(row), 0.0);
+    }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class RefreshSchedulerTest extends TestCase {
+
+    public void testRegularDelayIsJitteredAboveInterval() {
+        assertEquals(1000, RefreshScheduler.nextDelayMillis(0, 1000, 100, 10_000, 0.0));
+        assertEquals(1100, RefreshScheduler.nextDelayMillis(0, 1000, 100, 10_000, 0.5));
+    }
+
+    public void testBackoffDoublesUpToCap() {
+        assertEquals(50, RefreshScheduler.nextDelayMillis(1, 1000, 100, 10_000, 0.0));
+        assertEquals(200, RefreshScheduler.nextDelayMillis(3, 1000, 100, 10_000, 0.0));
+        assertEquals(300, RefreshScheduler.nextDelayMillis(3, 1000, 100, 10_000, 0.5));
+        assertEquals(5000, RefreshScheduler.nextDelayMillis(40, 1000, 100, 10_000, 0.0));
+    }
+
+    public void testRetriesAfterFailureAndPublishes() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch published = new CountDownLatch(1);
+        WeatherTimeline.Current current = new WeatherTimeline.Current(30.0, 60.0, 10.0, "Clear");
+
+        RefreshScheduler scheduler = new RefreshScheduler(
+            city -> calls.incrementAndGet() < 3
+                ? CompletableFuture.completedFuture(new WeatherFetcher.CityWeather(city, null, null))
+                : CompletableFuture.completedFuture(new WeatherFetcher.CityWeather(city, current, null)),
+            weather -> published.countDown(),
+            Duration.ofMillis(5), Duration.ofMillis(5), Duration.ofMillis(20));
+        try {
+            scheduler.start(List.of("Chennai"));
+            assertTrue(published.await(5, TimeUnit.SECONDS));
+            assertEquals(3, calls.get());
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    public void testRecordedFailureRetriesOnBackoffInsteadOfInterval() throws InterruptedException {
+        CountDownLatch fetched = new CountDownLatch(1);
+        RefreshScheduler scheduler = new RefreshScheduler(
+            city -> {
+                fetched.countDown();
+                return CompletableFuture.completedFuture(null);
+            },
+            weather -> { },
+            Duration.ofHours(1), Duration.ofMillis(5), Duration.ofMillis(20));
+        try {
+            scheduler.recordFailure("Chennai");
+            scheduler.start(List.of("Chennai"));
+            assertTrue(fetched.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.close();
+        }
+    }
+}
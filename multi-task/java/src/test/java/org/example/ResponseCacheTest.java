@@ -0,0 +1,129 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+public class ResponseCacheTest extends TestCase {
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    private ResponseCache.Entry entry(String body) {
+        return new ResponseCache.Entry(body, "\"v1\"", null, clock.get() + 100);
+    }
+
+    public void testServesFreshEntryUntilExpiry() {
+        ResponseCache cache = new ResponseCache(10, null, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+        ResponseCache.Loader loader = stale -> CompletableFuture.completedFuture(entry("body" + loads.incrementAndGet()));
+
+        assertEquals("body1", cache.get("k", loader).join());
+        clock.addAndGet(50);
+        assertEquals("body1", cache.get("k", loader).join());
+        clock.addAndGet(100);
+        assertEquals("body2", cache.get("k", loader).join());
+    }
+
+    public void testPassesStaleEntryForRevalidation() {
+        ResponseCache cache = new ResponseCache(10, null, clock::get);
+        cache.get("k", stale -> CompletableFuture.completedFuture(entry("original"))).join();
+        clock.addAndGet(500);
+
+        String body = cache.get("k", stale -> {
+            assertNotNull(stale);
+            assertEquals("\"v1\"", stale.etag());
+            return CompletableFuture.completedFuture(stale.withExpiry(clock.get() + 100));
+        }).join();
+        assertEquals("original", body);
+    }
+
+    public void testCollapsesConcurrentLoads() {
+        ResponseCache cache = new ResponseCache(10, null, clock::get);
+        CompletableFuture<ResponseCache.Entry> slow = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> first = cache.get("k", stale -> { loads.incrementAndGet(); return slow; });
+        CompletableFuture<String> second = cache.get("k", stale -> { loads.incrementAndGet(); return slow; });
+        slow.complete(entry("shared"));
+
+        assertEquals("shared", first.join());
+        assertEquals("shared", second.join());
+        assertEquals(1, loads.get());
+    }
+
+    public void testFailedRefreshFailsWithTheStaleBody() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(10, null, clock::get);
+        cache.get("k", stale -> CompletableFuture.completedFuture(entry("old"))).join();
+        clock.addAndGet(500);
+
+        try {
+            cache.get("k", stale -> CompletableFuture.completedFuture(null)).get();
+            fail("A failed refresh must not look like a successful one");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ResponseCache.StaleResponseException);
+            assertEquals("old", ((ResponseCache.StaleResponseException) e.getCause()).body());
+        }
+        assertEquals("old", cache.peek("k").body());
+    }
+
+    public void testEntriesSurviveRestartOnDisk() throws IOException {
+        Path dir = Files.createTempDirectory("cache");
+        new ResponseCache(10, dir, clock::get).get("k", stale -> CompletableFuture.completedFuture(entry("persisted"))).join();
+
+        ResponseCache restarted = new ResponseCache(10, dir, clock::get);
+        String body = restarted.get("k", stale -> {
+            throw new AssertionError("should be served from disk");
+        }).join();
+        assertEquals("persisted", body);
+    }
+
+    public void testPeekReturnsExpiredDiskEntryWithoutLoading() throws IOException {
+        Path dir = Files.createTempDirectory("cache");
+        new ResponseCache(10, dir, clock::get).put("k", entry("persisted"));
+        clock.addAndGet(10_000);
+
+        ResponseCache restarted = new ResponseCache(10, dir, clock::get);
+        assertEquals("persisted", restarted.peek("k").body());
+        assertNull(restarted.peek("other"));
+    }
+
+    public void testLatestFindsNewestMatchingEntryOnDisk() throws IOException {
+        Path dir = Files.createTempDirectory("cache");
+        ResponseCache cache = new ResponseCache(10, dir, clock::get);
+        cache.put("chennai/2024-01-01", entry("monday"));
+        clock.addAndGet(1_000);
+        cache.put("chennai/2024-01-02", entry("tuesday"));
+        cache.put("delhi/2024-01-03", new ResponseCache.Entry("delhi", null, null, clock.get() + 5_000));
+
+        ResponseCache restarted = new ResponseCache(10, dir, clock::get);
+        assertEquals("tuesday", restarted.latest(key -> key.startsWith("chennai/")).entry().body());
+        assertNull(restarted.latest(key -> key.startsWith("mumbai/")));
+    }
+
+    public void testEvictsDiskEntriesPastRetentionOnWrite() throws IOException {
+        Path dir = Files.createTempDirectory("cache");
+        clock.set(System.currentTimeMillis());
+        ResponseCache cache = new ResponseCache(10, dir, Duration.ofDays(7), clock::get);
+        cache.put("yesterday", entry("old"));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.cache")) {
+            for (Path file : files) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(clock.get() - Duration.ofDays(8).toMillis()));
+            }
+        }
+
+        clock.addAndGet(Duration.ofHours(2).toMillis());
+        cache.put("today", entry("new"));
+
+        ResponseCache restarted = new ResponseCache(10, dir, clock::get);
+        assertNull(restarted.peek("yesterday"));
+        assertEquals("new", restarted.peek("today").body());
+    }
+}
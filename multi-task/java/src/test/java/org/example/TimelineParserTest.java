@@ -0,0 +1,61 @@
+package org.example;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import junit.framework.TestCase;
+
+public class TimelineParserTest extends TestCase {
+
+    private static final String RESPONSE = "{"
+        + "\"queryCost\":1,\"latitude\":13.08,\"resolvedAddress\":\"Chennai, TN, India\","
+        + "\"address\":\"Chennai\",\"timezone\":\"Asia/Kolkata\",\"tzoffset\":5.5,"
+        + "\"days\":["
+        + "{\"datetime\":\"2024-11-13\",\"tempmax\":31.0,\"tempmin\":24.1,\"temp\":27.4,\"humidity\":78.2,"
+        + "\"windspeed\":18.4,\"stations\":[\"VOMM\",\"43279099999\"],\"conditions\":\"Rain, Overcast\","
+        + "\"hours\":[{\"datetime\":\"00:00:00\",\"temp\":25.0,\"humidity\":90}]},"
+        + "{\"datetime\":\"2024-11-14\",\"tempmax\":30.2,\"tempmin\":null,\"temp\":26.9,\"humidity\":81,"
+        + "\"windspeed\":14,\"conditions\":\"Overcast\",\"hours\":[]}"
+        + "],"
+        + "\"stations\":{\"VOMM\":{\"distance\":10.0,\"name\":\"VOMM\"}},"
+        + "\"currentConditions\":{\"datetime\":\"10:30:00\",\"temp\":29.1,\"humidity\":70.5,"
+        + "\"windspeed\":11.2,\"preciptype\":[\"rain\"],\"conditions\":\"Partially cloudy\"}"
+        + "}";
+
+    public void testExtractsUsedFieldsOnly() throws IOException {
+        WeatherTimeline timeline = TimelineParser.parse(RESPONSE);
+
+        assertEquals("Chennai", timeline.address());
+        assertEquals("Asia/Kolkata", timeline.timezone());
+        assertEquals(29.1, timeline.current().temp(), 0.0);
+        assertEquals(70.5, timeline.current().humidity(), 0.0);
+        assertEquals(11.2, timeline.current().windspeed(), 0.0);
+        assertEquals("Partially cloudy", timeline.current().conditions());
+
+        assertEquals(2, timeline.days().size());
+        WeatherTimeline.Day tomorrow = timeline.days().get(1);
+        assertEquals(LocalDate.of(2024, 11, 14), tomorrow.date());
+        assertEquals(81.0, tomorrow.humidity(), 0.0);
+        assertEquals(14.0, tomorrow.windspeed(), 0.0);
+        assertTrue(Double.isNaN(tomorrow.tempMin()));
+        assertEquals("Rain, Overcast", timeline.days().get(0).conditions());
+    }
+
+    public void testSkipsDayElementsThatAreNotObjects() throws IOException {
+        WeatherTimeline timeline = TimelineParser.parse("{\"days\":["
+            + "{\"datetime\":\"2024-11-13\",\"temp\":27.4},null,[1,{\"temp\":3}],\"x\","
+            + "{\"datetime\":\"2024-11-14\",\"temp\":26.9}],\"address\":\"Chennai\"}");
+
+        assertEquals(2, timeline.days().size());
+        assertEquals(26.9, timeline.days().get(1).temp(), 0.0);
+        assertEquals("Chennai", timeline.address());
+    }
+
+    public void testRejectsNonObject() {
+        try {
+            TimelineParser.parse("[1,2]");
+            fail("expected a non-object response to be rejected");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import junit.framework.TestCase;
+
+public class WeatherFetcherTest extends TestCase {
+    private static final String KEY =
+        "http://stub/Chennai/2024-11-13/2024-11-20?unitGroup=metric&include=current,days&contentType=json";
+
+    private static String response(String date) {
+        return "{\"address\":\"Chennai\",\"days\":[{\"datetime\":\"" + date + "\",\"temp\":27.4}],"
+            + "\"currentConditions\":{\"temp\":29.1,\"humidity\":70.5,\"windspeed\":11.2}}";
+    }
+
+    private static WeatherFetcher fetcher(ResponseCache cache) {
+        return new WeatherFetcher(HttpClient.newHttpClient(), "http://stub", "secret", cache, Duration.ofMinutes(10));
+    }
+
+    public void testCachedCityReadsTheLatestRangeResponse() {
+        ResponseCache cache = new ResponseCache(10, null);
+        cache.put(KEY, new ResponseCache.Entry(response("2024-11-13"), null, null, 0));
+
+        WeatherFetcher.CityWeather weather = fetcher(cache).cachedCity("Chennai");
+
+        assertEquals(29.1, weather.current().temp(), 0.0);
+        assertEquals(1, weather.days().size());
+    }
+
+    public void testCachedCityDropsAnEntryItCannotParse() {
+        ResponseCache cache = new ResponseCache(10, null);
+        cache.put(KEY, new ResponseCache.Entry(response("13/11/2024"), null, null, 0));
+
+        assertNull(fetcher(cache).cachedCity("Chennai"));
+        assertNull(cache.peek(KEY));
+    }
+}
@@ -1,13 +1,28 @@
+import glob
+import os
+import re
+import sys
+
 import pandas as pd
-import mysql.connector
-import numpy as np
 from sklearn.model_selection import train_test_split
 from sklearn.ensemble import RandomForestRegressor
-from sqlalchemy import create_engine
-from datetime import datetime
+from sqlalchemy import create_engine, text
+
+# Usage: python predict_city.py <city> [history_dir]
+# The history CSV is the "<city> <from> to <to>.csv" export in history_dir (default: this directory)
+if len(sys.argv) < 2:
+    sys.exit("usage: predict_city.py <city> [history_dir]")
+city = sys.argv[1]
+history_dir = sys.argv[2] if len(sys.argv) > 2 else os.path.dirname(os.path.abspath(__file__))
+
+pattern = re.compile(re.escape(city.lower()) + r" \d{4}-\d{2}-\d{2} to \d{4}-\d{2}-\d{2}\.csv")
+matches = [path for path in glob.glob(os.path.join(history_dir, "*.csv"))
+           if pattern.fullmatch(os.path.basename(path).lower())]
+if not matches:
+    sys.exit(f"No history CSV for {city} in {history_dir}")
 
 # Read and prepare historical weather data
-weather = pd.read_csv(r"C:\Users\shshv\IdeaProjects\multi-task\python1\bangalore 2022-01-01 to 2024-09-15.csv")
+weather = pd.read_csv(matches[0])
 weather = weather.set_index("datetime")
 
 # Modify target creation to use current temperature with next day's conditions
@@ -40,9 +55,11 @@ MYSQL_DATABASE = "weather_db"
 # Create SQLAlchemy engine
 engine = create_engine(f'mysql+mysqlconnector://{MYSQL_USER}:{MYSQL_PASSWORD}@{MYSQL_HOST}/{MYSQL_DATABASE}')
 
-# Read current weather data
-query = "SELECT * FROM weather_data"
-df = pd.read_sql(query, engine)
+# Read current weather data for this city only
+query = text("SELECT * FROM weather_data WHERE city = :city")
+df = pd.read_sql(query, engine, params={"city": city})
+if df.empty:
+    sys.exit(f"No current weather data for {city}")
 
 # Prepare features for prediction
 # Note: temperature in df is already today's temperature,
@@ -64,4 +81,4 @@ predictions_df = pd.DataFrame({
 
 # Insert predictions into database
 predictions_df.to_sql('predictions', con=engine, if_exists='append', index=False)
-print("Predictions successfully generated and stored in database!")
\ No newline at end of file
+print(f"Predictions for {city} successfully generated and stored in database!")